@@ -0,0 +1,50 @@
+package com.example.demo.cache;
+
+import com.example.demo.utils.ToolChamberUtil;
+import com.example.demo.vo.CacheRegionStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * process-wide 的快取統計：ReferenceDataCache 各 region 與 recipeId 解析 memo 的即時統計，
+ * 加上所有已結束批次的 BatchCache 統計總計
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics {
+
+    public static final String SCOPE_REFERENCE = "reference";
+    public static final String SCOPE_BATCH = "batch";
+
+    private final ReferenceDataCache referenceDataCache;
+
+    private final Map<String, CacheStats> batchTotals = new ConcurrentSkipListMap<>();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * 累加一個批次的 BatchCache 統計 (key = region 名稱)
+     */
+    public void recordBatch(Map<String, CacheStats> regionStats) {
+        regionStats.forEach((region, stats) -> batchTotals.computeIfAbsent(region, k -> new CacheStats()).merge(stats));
+        batches.increment();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public List<CacheRegionStats> snapshot() {
+        List<CacheRegionStats> snapshot = new ArrayList<>(referenceDataCache.getStats());
+        snapshot.add(ToolChamberUtil.recipeChamberStats());
+        batchTotals.forEach((region, stats) -> snapshot.add(stats.toRegionStats(SCOPE_BATCH, region, null)));
+        return snapshot;
+    }
+}
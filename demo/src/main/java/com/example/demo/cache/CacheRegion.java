@@ -0,0 +1,168 @@
+package com.example.demo.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 以 CompletableFuture 為值的快取 region (無 TTL)。
+ * <p>
+ * ● DAO 載入在 map 的鎖外、於第一個 miss 的呼叫端 thread 上執行，不會卡住同一個 bin 的其他 key，
+ *   loader 內也可再讀取同一個 region 的其他 key。
+ * ● 同一個 key 同時 miss 時只載入一次，其他呼叫端等待同一個 future。
+ * ● 載入失敗時不快取，下一次呼叫重新載入。
+ * ● loader 回傳 null (查無資料) 時記錄一筆「查無資料」的 sentinel，在 negative TTL 內直接回傳 null，
+ *   不再重複查詢；negative TTL 為 0 時不快取 null，為 {@link #NO_EXPIRY} 時 sentinel 與 region 同生同滅。
+ * ● 命中 / 未命中與載入耗時記錄於 {@link #getStats()}；等待載入中的 future 也算命中。
+ */
+public class CacheRegion<K, V> {
+
+    /**
+     * negative TTL 使用此值時，查無資料的 sentinel 不過期
+     */
+    public static final Duration NO_EXPIRY = Duration.ofSeconds(Long.MAX_VALUE);
+
+    private static final long NEVER_EXPIRES = Long.MIN_VALUE;
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> futures = new ConcurrentHashMap<>();
+    /**
+     * 查無資料的 key → sentinel 到期時間 (System.nanoTime)；不過期的 sentinel 為 NEVER_EXPIRES
+     */
+    private final ConcurrentHashMap<K, Long> absentUntil = new ConcurrentHashMap<>();
+    private final CacheStats stats = new CacheStats();
+    private final Supplier<Duration> negativeTtl;
+
+    public CacheRegion(String name) {
+        this(name, () -> Duration.ZERO);
+    }
+
+    /**
+     * @param negativeTtl 查無資料的 sentinel 保留多久；以 supplier 傳入，於第一次查無資料時才讀取
+     */
+    public CacheRegion(String name, Supplier<Duration> negativeTtl) {
+        this.name = name;
+        this.negativeTtl = negativeTtl;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        if (isKnownAbsent(key)) {
+            stats.recordHit();
+            return null;
+        }
+        CompletableFuture<V> future = futures.get(key);
+        if (future == null) {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            future = futures.putIfAbsent(key, created);
+            if (future == null) {
+                stats.recordMiss();
+                return load(key, created, loader);
+            }
+        }
+        stats.recordHit();
+        return await(future);
+    }
+
+    private V load(K key, CompletableFuture<V> created, Function<K, V> loader) {
+        V value;
+        long start = System.nanoTime();
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error ex) {
+            stats.recordLoad(System.nanoTime() - start, false);
+            futures.remove(key, created);
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+        stats.recordLoad(System.nanoTime() - start, true);
+        if (value == null) {
+            putAbsent(key);
+            futures.remove(key, created);
+        } else {
+            stats.recordSize(futures.size());
+        }
+        created.complete(value);
+        return value;
+    }
+
+    /**
+     * 已載入 (或載入中、或在 negative TTL 內確認查無資料) 的 key
+     */
+    public boolean containsKey(K key) {
+        return futures.containsKey(key) || isKnownAbsent(key);
+    }
+
+    /**
+     * 在 negative TTL 內確認查無資料的 key；過期的 sentinel 會一併移除
+     */
+    public boolean isKnownAbsent(K key) {
+        Long until = absentUntil.get(key);
+        if (until == null) {
+            return false;
+        }
+        if (until == NEVER_EXPIRES || System.nanoTime() - until < 0) {
+            return true;
+        }
+        absentUntil.remove(key, until);
+        return false;
+    }
+
+    /**
+     * 記錄 key 查無資料 (例如多筆查詢的結果中沒有此 key)；negative TTL 為 0 時不記錄
+     */
+    public void putAbsent(K key) {
+        Duration ttl = negativeTtl.get();
+        if (NO_EXPIRY.equals(ttl)) {
+            absentUntil.put(key, NEVER_EXPIRES);
+        } else if (ttl.isPositive()) {
+            absentUntil.put(key, System.nanoTime() + ttl.toNanos());
+        }
+    }
+
+    /**
+     * 放入預先載入的資料；已存在 (或載入中) 的 key 不覆蓋
+     */
+    public void putIfAbsent(K key, V value) {
+        if (value != null && futures.putIfAbsent(key, CompletableFuture.completedFuture(value)) == null) {
+            absentUntil.remove(key);
+            stats.recordSize(futures.size());
+        }
+    }
+
+    public void remove(K key) {
+        futures.remove(key);
+        absentUntil.remove(key);
+    }
+
+    /**
+     * 資料筆數 (含查無資料的 sentinel)
+     */
+    public int size() {
+        return futures.size() + absentUntil.size();
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (ex.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw ex;
+        }
+    }
+}
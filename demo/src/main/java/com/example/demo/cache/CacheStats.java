@@ -0,0 +1,116 @@
+package com.example.demo.cache;
+
+import com.example.demo.vo.CacheRegionStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 單一快取 region 的統計：命中 / 未命中、載入次數與耗時分布、資料筆數。
+ * <p>
+ * ● thread-safe，以 LongAdder 累加，呼叫端在熱路徑上更新的成本很低。
+ * ● 一次多筆查詢 (prefetch) 記為一次載入。
+ */
+public class CacheStats {
+
+    /**
+     * 載入耗時分布的上限 (ms)；超過最後一個上限的歸入最後一格
+     */
+    static final long[] LATENCY_BUCKET_MILLIS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKET_MILLIS.length + 1);
+    private final LongAccumulator peakSize = new LongAccumulator(Math::max, 0);
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordLoad(long nanos, boolean success) {
+        loads.increment();
+        if (!success) {
+            loadFailures.increment();
+        }
+        loadNanos.add(nanos);
+        latencyBuckets.incrementAndGet(bucketOf(nanos / 1_000_000));
+    }
+
+    public void recordSize(long size) {
+        peakSize.accumulate(size);
+    }
+
+    private static int bucketOf(long millis) {
+        for (int i = 0; i < LATENCY_BUCKET_MILLIS.length; i++) {
+            if (millis <= LATENCY_BUCKET_MILLIS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKET_MILLIS.length;
+    }
+
+    /**
+     * 將另一份統計累加進來 (各批次的 BatchCache 統計彙總為 process-wide 總計)
+     */
+    public void merge(CacheStats other) {
+        hits.add(other.hits.sum());
+        misses.add(other.misses.sum());
+        loads.add(other.loads.sum());
+        loadFailures.add(other.loadFailures.sum());
+        loadNanos.add(other.loadNanos.sum());
+        for (int i = 0; i < latencyBuckets.length(); i++) {
+            latencyBuckets.addAndGet(i, other.latencyBuckets.get(i));
+        }
+        peakSize.accumulate(other.peakSize.get());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * @param size 目前的資料筆數；無法取得時傳 null
+     */
+    public CacheRegionStats toRegionStats(String scope, String region, Long size) {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long loadCount = loads.sum();
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < LATENCY_BUCKET_MILLIS.length; i++) {
+            histogram.put("<=" + LATENCY_BUCKET_MILLIS[i] + "ms", latencyBuckets.get(i));
+        }
+        histogram.put(">" + LATENCY_BUCKET_MILLIS[LATENCY_BUCKET_MILLIS.length - 1] + "ms",
+                latencyBuckets.get(LATENCY_BUCKET_MILLIS.length));
+        return CacheRegionStats.builder()
+                .scope(scope)
+                .region(region)
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRate(hitCount + missCount == 0 ? null : (double) hitCount / (hitCount + missCount))
+                .loads(loadCount)
+                .loadFailures(loadFailures.sum())
+                .avgLoadMillis(loadCount == 0 ? null : loadNanos.sum() / 1_000_000.0 / loadCount)
+                .loadLatencyMillis(histogram)
+                .size(size)
+                .peakSize(peakSize.get())
+                .build();
+    }
+}
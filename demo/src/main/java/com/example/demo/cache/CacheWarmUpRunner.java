@@ -0,0 +1,154 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.service.DataLoaderService;
+import com.example.demo.utils.RuleUtil;
+import com.example.demo.vo.ModuleInfo;
+import com.example.demo.vo.RuncardRawInfo;
+import com.example.demo.vo.ToolRuleGroup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 啟動預熱：ApplicationRunner 在 readiness 回報 (ApplicationReadyEvent) 之前執行，
+ * 預先載入 tool → section、各 module 的 ToolRuleGroup 編譯結果 ({@link ToolGroupIndexRegistry}) 與該 module 近期 runcard 的發卡工程師資料，
+ * 避免部署後第一個 /refresh 承擔全部載入成本。
+ * <p>
+ * ● ToolRuleGroup 本身是否快取依 runcard.cache.tool-rule-group.ttl；預設不快取，/refresh 仍讀取最新的 group，
+ *   版本 (updateDt) 未變動時直接沿用預熱時的編譯結果。
+ * ● 各 module 的 group 與 runcard 查詢同時送出 (在 dataLoadExecutor 上執行，並行度受其限制)；
+ *   runcard 只查 warm-up-lookback 內的資料，工程師數量不超過 engineer region 容量。
+ * ● 單一 module 失敗只記錄 log，不影響其他 module 與啟動。
+ * <p>
+ * 若已由磁碟 snapshot 還原 ({@link ReferenceCacheSnapshot})，直接以還原的資料提供服務，
+ * 重新載入與預熱改在背景執行。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheWarmUpRunner implements ApplicationRunner {
+
+    private final DataLoaderService dataLoaderService;
+    private final ReferenceDataCache referenceDataCache;
+    private final ToolGroupIndexRegistry groupIndexRegistry;
+    private final ReferenceCacheSnapshot snapshot;
+    private final ReferenceCacheProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            log.info("[WarmUp] disabled");
+            return;
+        }
+        if (snapshot.restore()) {
+            Thread.ofVirtual().name("cache-refresh").start(this::refreshAfterRestore);
+            return;
+        }
+        if (!properties.isWarmUpEnabled()) {
+            log.info("[WarmUp] disabled");
+            return;
+        }
+        warmUp();
+    }
+
+    private void refreshAfterRestore() {
+        try {
+            referenceDataCache.reloadAll();
+            if (properties.isWarmUpEnabled()) {
+                warmUp();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("[WarmUp] background refresh after snapshot restore failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+
+        try {
+            int toolSectSize = referenceDataCache.getToolIdToSectNameMap().size();
+            log.info("[WarmUp] toolSectMap size={}", toolSectSize);
+        } catch (RuntimeException ex) {
+            log.warn("[WarmUp] toolSectMap failed: {}", ex.getMessage(), ex);
+        }
+
+        List<ModuleInfo> modules = dataLoaderService.getModules();
+        LocalDateTime now = LocalDateTime.now();
+        List<ModuleWarmUp> pending = new ArrayList<>(modules.size());
+        for (ModuleInfo module : modules) {
+            pending.add(startModule(module, now));
+        }
+        int warmed = 0;
+        for (ModuleWarmUp moduleWarmUp : pending) {
+            if (finishModule(moduleWarmUp)) {
+                warmed++;
+            }
+        }
+        log.info("[WarmUp] done modules={}/{} total cost={} ms",
+                warmed, modules.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 同時送出該 module 的 group 與近期 runcard 查詢
+     */
+    private ModuleWarmUp startModule(ModuleInfo module, LocalDateTime now) {
+        List<String> sectionIds = (module.getSectionIds() == null || module.getSectionIds().isEmpty())
+                ? List.of(module.getModule())
+                : module.getSectionIds();
+        long groupLoadSequence = groupIndexRegistry.nextLoadSequence();
+        CompletableFuture<List<ToolRuleGroup>> groups;
+        CompletableFuture<Optional<List<RuncardRawInfo>>> runcards;
+        try {
+            groups = referenceDataCache.getToolRuleGroupsAsync(sectionIds);
+            runcards = dataLoaderService.getQueryRuncardBatchAsync(sectionIds, now.minus(properties.getWarmUpLookback()), now);
+        } catch (RuntimeException ex) {
+            groups = CompletableFuture.failedFuture(ex);
+            runcards = CompletableFuture.failedFuture(ex);
+        }
+        return new ModuleWarmUp(module, sectionIds, groupLoadSequence, groups, runcards, System.nanoTime());
+    }
+
+    private boolean finishModule(ModuleWarmUp moduleWarmUp) {
+        try {
+            List<ToolRuleGroup> groups = moduleWarmUp.groups().join();
+            long version = groupIndexRegistry.get(moduleWarmUp.sectionIds(), groups, moduleWarmUp.groupLoadSequence()).version();
+
+            List<String> empIds = moduleWarmUp.runcards().join()
+                    .orElse(List.of())
+                    .stream()
+                    .map(RuncardRawInfo::getIssuingEngineer)
+                    .map(RuleUtil::extractEmpId)
+                    .flatMap(Optional::stream)
+                    .distinct()
+                    .limit(properties.getEngineer().getMaxSize())
+                    .toList();
+            int engineers = empIds.isEmpty() ? 0 : referenceDataCache.getIssuingEngineerInfos(empIds).size();
+
+            log.info("[WarmUp] module={} sections={} groups={} groupIndexVersion={} engineers={} cost={} ms",
+                    moduleWarmUp.module().getModule(), moduleWarmUp.sectionIds(), groups.size(), version, engineers,
+                    (System.nanoTime() - moduleWarmUp.startNanos()) / 1_000_000);
+            return true;
+        } catch (RuntimeException ex) {
+            log.warn("[WarmUp] module={} failed after {} ms: {}", moduleWarmUp.module().getModule(),
+                    (System.nanoTime() - moduleWarmUp.startNanos()) / 1_000_000, ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    private record ModuleWarmUp(ModuleInfo module,
+                                List<String> sectionIds,
+                                long groupLoadSequence,
+                                CompletableFuture<List<ToolRuleGroup>> groups,
+                                CompletableFuture<Optional<List<RuncardRawInfo>>> runcards,
+                                long startNanos) {
+    }
+}
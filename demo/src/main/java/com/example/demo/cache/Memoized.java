@@ -0,0 +1,55 @@
+package com.example.demo.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 只載入一次的值：第一個呼叫端在鎖外執行 loader，同時呼叫的其他 thread 等待同一個結果。
+ * 載入失敗時不保留，下一次呼叫重新載入。
+ */
+public class Memoized<T> {
+
+    private final Supplier<T> loader;
+    private final AtomicReference<CompletableFuture<T>> future = new AtomicReference<>();
+
+    public Memoized(Supplier<T> loader) {
+        this.loader = loader;
+    }
+
+    public T get() {
+        CompletableFuture<T> current;
+        // CAS 失敗後讀到 null 代表載入者已失敗並清除，重新競爭成為載入者
+        while ((current = future.get()) == null) {
+            CompletableFuture<T> created = new CompletableFuture<>();
+            if (future.compareAndSet(null, created)) {
+                try {
+                    T value = loader.get();
+                    created.complete(value);
+                    return value;
+                } catch (RuntimeException | Error ex) {
+                    future.compareAndSet(created, null);
+                    created.completeExceptionally(ex);
+                    throw ex;
+                }
+            }
+        }
+        try {
+            return current.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (ex.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw ex;
+        }
+    }
+
+    public boolean isLoaded() {
+        CompletableFuture<T> current = future.get();
+        return current != null && current.isDone() && !current.isCompletedExceptionally();
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.po.IssuingEngineerInfo;
+import com.example.demo.vo.Rule;
+import com.example.demo.vo.ToolChamberBlueIndex;
+import com.example.demo.vo.ToolInfo;
+import com.example.demo.vo.ToolRuleGroup;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReferenceDataCache 的磁碟 snapshot：定期寫出，重啟時以 memory-mapped 方式讀回，
+ * 讓服務不必等所有參考資料重新向 DAO 載入即可提供服務。
+ * <p>
+ * 檔案格式 (big-endian)：
+ * <pre>
+ * header : magic(int) | formatVersion(int) | createdAtEpochMillis(long) | entryCount(int)
+ * entry  : region(byte) | keyLength(int) | key(UTF-8) | valueLength(int) | value
+ * </pre>
+ * value 依 region 逐欄位以二進位寫出 (字串為 length(int) + UTF-8，null 以 length -1 表示；List / Map 先寫筆數，null 為 -1)；
+ * 只有 Rule.settings 為任意型別的 Map，仍以 JSON 寫成一個字串欄位。
+ * magic / formatVersion 不符、或超過 runcard.cache.snapshot-max-age 的 snapshot 視為過期，不還原。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceCacheSnapshot {
+
+    static final int MAGIC = 0x52435348; // "RCSH"
+    static final int FORMAT_VERSION = 2;
+
+    static final byte REGION_TOOL_SECT = 1;
+    static final byte REGION_TOOL_RULE_GROUP = 2;
+    static final byte REGION_ENGINEER = 3;
+    static final byte REGION_BLUE = 4;
+
+    private static final TypeReference<Map<String, Object>> SETTINGS_TYPE = new TypeReference<>() {
+    };
+
+    private final ReferenceDataCache referenceDataCache;
+    private final ReferenceCacheProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Scheduled(initialDelayString = "#{@referenceCacheProperties.snapshotInterval.toMillis()}",
+            fixedDelayString = "#{@referenceCacheProperties.snapshotInterval.toMillis()}")
+    public void scheduledWrite() {
+        if (properties.isEnabled() && properties.isSnapshotEnabled()) {
+            write();
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        scheduledWrite();
+    }
+
+    /**
+     * 將目前所有未過期的資料寫入 snapshot 檔 (先寫暫存檔再 rename，讀取端不會看到寫到一半的檔案)。
+     * 定期寫出與關機時的寫出可能同時發生，同一時間只允許一個寫出
+     *
+     * @return 寫出的筆數；失敗時回傳 -1
+     */
+    public synchronized int write() {
+        long start = System.nanoTime();
+        Path path = Path.of(properties.getSnapshotPath()).toAbsolutePath();
+        Path tmp = null;
+        try {
+            List<Entry> entries = new ArrayList<>();
+            collect(entries, REGION_TOOL_SECT, referenceDataCache.toolSectRegion().asMap(), ReferenceCacheSnapshot::writeToolSect);
+            collect(entries, REGION_TOOL_RULE_GROUP, referenceDataCache.toolRuleGroupRegion().asMap(), this::writeGroups);
+            collect(entries, REGION_ENGINEER, referenceDataCache.engineerRegion().asMap(), ReferenceCacheSnapshot::writeEngineer);
+            collect(entries, REGION_BLUE, referenceDataCache.blueRegion().asMap(), ReferenceCacheSnapshot::writeBlue);
+
+            Files.createDirectories(path.getParent());
+            tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeByte(entry.region());
+                    out.writeInt(entry.key().length);
+                    out.write(entry.key());
+                    out.writeInt(entry.value().length);
+                    out.write(entry.value());
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("[CacheSnapshot] write path={} entries={} cost={} ms",
+                    path, entries.size(), (System.nanoTime() - start) / 1_000_000);
+            return entries.size();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("[CacheSnapshot] write failed path={}: {}", path, ex.getMessage(), ex);
+            deleteQuietly(tmp);
+            return -1;
+        }
+    }
+
+    private static void deleteQuietly(Path tmp) {
+        if (tmp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException ex) {
+            log.warn("[CacheSnapshot] delete temp file {} failed: {}", tmp, ex.getMessage());
+        }
+    }
+
+    private <V> void collect(List<Entry> entries, byte region, Map<String, V> values,
+                             ValueWriter<V> writer) throws IOException {
+        for (Map.Entry<String, V> e : values.entrySet()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                writer.write(out, e.getValue());
+            }
+            entries.add(new Entry(region, e.getKey().getBytes(StandardCharsets.UTF_8), bytes.toByteArray()));
+        }
+    }
+
+    private static void writeToolSect(DataOutputStream out, Map<String, String> toolSect) throws IOException {
+        out.writeInt(toolSect.size());
+        for (Map.Entry<String, String> e : toolSect.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    private void writeGroups(DataOutputStream out, List<ToolRuleGroup> groups) throws IOException {
+        out.writeInt(groups.size());
+        for (ToolRuleGroup group : groups) {
+            writeString(out, group.getGroupName());
+            writeString(out, group.getUpdateUser());
+            writeString(out, group.getModule());
+            writeString(out, group.getDepartment());
+            writeString(out, group.getSection());
+            out.writeBoolean(group.getUpdateDt() != null);
+            if (group.getUpdateDt() != null) {
+                out.writeLong(group.getUpdateDt().toLocalDate().toEpochDay());
+                out.writeLong(group.getUpdateDt().toLocalTime().toNanoOfDay());
+            }
+            writeList(out, group.getTools(), (o, tool) -> {
+                writeString(o, tool.getDeptName());
+                writeString(o, tool.getSecName());
+                writeString(o, tool.getToolId());
+                writeString(o, tool.getChamberId());
+            });
+            writeList(out, group.getRules(), (o, rule) -> {
+                writeString(o, rule.getRuleType());
+                writeList(o, rule.getLotType(), ReferenceCacheSnapshot::writeString);
+                writeString(o, rule.getSettings() == null ? null : objectMapper.writeValueAsString(rule.getSettings()));
+            });
+        }
+    }
+
+    private static void writeEngineer(DataOutputStream out, IssuingEngineerInfo info) throws IOException {
+        writeString(out, info.getEngineerName());
+        writeString(out, info.getEngineerId());
+        writeString(out, info.getDivisionName());
+        writeString(out, info.getDivisionId());
+        writeString(out, info.getDepartmentName());
+        writeString(out, info.getDepartmentId());
+        writeString(out, info.getSectionName());
+        writeString(out, info.getSectionId());
+    }
+
+    private static void writeBlue(DataOutputStream out, ToolChamberBlueIndex index) throws IOException {
+        out.writeBoolean(index.isToolPass());
+        out.writeInt(index.getChamberPass().size());
+        for (Map.Entry<String, Boolean> e : index.getChamberPass().entrySet()) {
+            writeString(out, e.getKey());
+            out.writeBoolean(e.getValue());
+        }
+    }
+
+    private static <T> void writeList(DataOutputStream out, List<T> list, ValueWriter<T> writer) throws IOException {
+        if (list == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(list.size());
+        for (T item : list) {
+            writer.write(out, item);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 讀回 snapshot 並填入 ReferenceDataCache；檔案不存在、格式不符、過期或損毀時不還原任何資料 (不丟出例外)
+     *
+     * @return 是否已還原
+     */
+    public boolean restore() {
+        if (!properties.isEnabled() || !properties.isSnapshotEnabled()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        Path path = Path.of(properties.getSnapshotPath());
+        if (!Files.isRegularFile(path)) {
+            log.info("[CacheSnapshot] no snapshot at {}", path);
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            if (magic != MAGIC || version != FORMAT_VERSION) {
+                log.warn("[CacheSnapshot] ignore {}: magic={}, version={} (expected version {})",
+                        path, Integer.toHexString(magic), version, FORMAT_VERSION);
+                return false;
+            }
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            Duration age = Duration.between(createdAt, Instant.now());
+            if (age.compareTo(properties.getSnapshotMaxAge()) > 0) {
+                log.warn("[CacheSnapshot] ignore {}: createdAt={} older than {}", path, createdAt, properties.getSnapshotMaxAge());
+                return false;
+            }
+
+            List<Runnable> puts = decode(buffer);
+            // 全部解碼成功後才寫入快取，損毀的檔案不會只還原一部分
+            puts.forEach(Runnable::run);
+            log.info("[CacheSnapshot] restore path={} createdAt={} entries={} cost={} ms",
+                    path, createdAt, puts.size(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            // 內容可解析但不合法 (例如 null 值造成 Map.copyOf 的 NPE) 也視為損毀，改走一般預熱
+            log.warn("[CacheSnapshot] restore failed path={}: {}", path, ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    private List<Runnable> decode(MappedByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        List<Runnable> puts = new ArrayList<>(Math.max(0, count));
+        for (int i = 0; i < count; i++) {
+            byte region = buffer.get();
+            String key = new String(readBytes(buffer), StandardCharsets.UTF_8);
+            ByteBuffer value = ByteBuffer.wrap(readBytes(buffer));
+            switch (region) {
+                case REGION_TOOL_SECT -> {
+                    Map<String, String> map = readToolSect(value);
+                    puts.add(() -> referenceDataCache.toolSectRegion().put(key, map));
+                }
+                case REGION_TOOL_RULE_GROUP -> {
+                    List<ToolRuleGroup> groups = readGroups(value);
+                    puts.add(() -> referenceDataCache.toolRuleGroupRegion().put(key, groups));
+                }
+                case REGION_ENGINEER -> {
+                    IssuingEngineerInfo info = readEngineer(value);
+                    puts.add(() -> referenceDataCache.engineerRegion().put(key, info));
+                }
+                case REGION_BLUE -> {
+                    ToolChamberBlueIndex index = readBlue(value);
+                    puts.add(() -> referenceDataCache.blueRegion().put(key, index));
+                }
+                default -> throw new IllegalArgumentException("unknown region " + region);
+            }
+            if (value.hasRemaining()) {
+                throw new IllegalArgumentException("trailing bytes in region " + region + " key " + key);
+            }
+        }
+        return puts;
+    }
+
+    private static Map<String, String> readToolSect(ByteBuffer in) {
+        int size = readCount(in);
+        Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return Map.copyOf(map);
+    }
+
+    private List<ToolRuleGroup> readGroups(ByteBuffer in) throws IOException {
+        int size = readCount(in);
+        List<ToolRuleGroup> groups = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String groupName = readString(in);
+            String updateUser = readString(in);
+            String module = readString(in);
+            String department = readString(in);
+            String section = readString(in);
+            LocalDateTime updateDt = in.get() == 0 ? null
+                    : LocalDateTime.of(LocalDate.ofEpochDay(in.getLong()), LocalTime.ofNanoOfDay(in.getLong()));
+            List<ToolInfo> tools = readList(in,
+                    o -> new ToolInfo(readString(o), readString(o), readString(o), readString(o)));
+            List<Rule> rules = readList(in, o -> {
+                String ruleType = readString(o);
+                List<String> lotType = readList(o, ReferenceCacheSnapshot::readString);
+                String settings = readString(o);
+                return new Rule(ruleType, lotType, settings == null ? null : objectMapper.readValue(settings, SETTINGS_TYPE));
+            });
+            groups.add(new ToolRuleGroup(groupName, updateUser, module, department, section, updateDt, tools, rules));
+        }
+        return List.copyOf(groups);
+    }
+
+    private static IssuingEngineerInfo readEngineer(ByteBuffer in) {
+        return IssuingEngineerInfo.builder()
+                .engineerName(readString(in))
+                .engineerId(readString(in))
+                .divisionName(readString(in))
+                .divisionId(readString(in))
+                .departmentName(readString(in))
+                .departmentId(readString(in))
+                .sectionName(readString(in))
+                .sectionId(readString(in))
+                .build();
+    }
+
+    private static ToolChamberBlueIndex readBlue(ByteBuffer in) {
+        boolean toolPass = in.get() != 0;
+        int size = readCount(in);
+        Map<String, Boolean> chamberPass = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            chamberPass.put(readString(in), in.get() != 0);
+        }
+        return ToolChamberBlueIndex.of(chamberPass, toolPass);
+    }
+
+    private static <T> List<T> readList(ByteBuffer in, ValueReader<T> reader) throws IOException {
+        int size = in.getInt();
+        if (size == -1) {
+            return null;
+        }
+        if (size < 0 || size > in.remaining()) {
+            throw new IllegalArgumentException("invalid count " + size);
+        }
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(reader.read(in));
+        }
+        return list;
+    }
+
+    private static int readCount(ByteBuffer in) {
+        int size = in.getInt();
+        if (size < 0 || size > in.remaining()) {
+            throw new IllegalArgumentException("invalid count " + size);
+        }
+        return size;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        return length == -1 ? null : new String(readBytes(in, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        return readBytes(buffer, buffer.getInt());
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("invalid length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ValueReader<T> {
+        T read(ByteBuffer in) throws IOException;
+    }
+
+    private record Entry(byte region, byte[] key, byte[] value) {
+    }
+}
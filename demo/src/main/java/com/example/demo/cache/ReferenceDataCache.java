@@ -0,0 +1,283 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.po.IssuingEngineerInfo;
+import com.example.demo.po.RecipeGroupCheckBlue;
+import com.example.demo.service.DataLoaderService;
+import com.example.demo.vo.CacheRegionStats;
+import com.example.demo.vo.ToolChamberBlueIndex;
+import com.example.demo.vo.ToolRuleGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * process-wide (singleton) 的參考資料快取，位於每個批次的 BatchCache 之下。
+ * <p>
+ * ● 只放變動緩慢、與 runcard 無關的全域資料：各 section 的 ToolRuleGroup、tool → section、
+ *   IssuingEngineerInfo、RecipeGroupCheckBlue。
+ * ● 每個 region 各自的 TTL 與容量上限 (runcard.cache.*)，超過容量以 LRU 淘汰。
+ * ● BatchCache 只在批次內第一次用到時讀取本快取，批次內資料仍保持一致。
+ * ● 查無資料的 engineer、RecipeGroupCheckBlue 查無資料的 tool 與沒有 group 的 section 以 sentinel 記錄
+ *   (runcard.cache.negative-ttl)，期間內不再查詢，過期後重新查詢。
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+
+    private static final String TOOL_SECT_KEY = "ALL";
+
+    private final DataLoaderService dataLoaderService;
+    private final ReferenceCacheProperties properties;
+
+    private final TtlLruCache<String, Map<String, String>> toolSectRegion;
+    private final TtlLruCache<String, IssuingEngineerInfo> engineerRegion;
+    private final TtlLruCache<String, ToolChamberBlueIndex> blueRegion;
+    private final TtlLruCache<String, List<ToolRuleGroup>> toolRuleGroupRegion;
+
+    public ReferenceDataCache(DataLoaderService dataLoaderService, ReferenceCacheProperties properties) {
+        this.dataLoaderService = dataLoaderService;
+        this.properties = properties;
+        this.toolSectRegion = region("toolSect", properties.getToolSect());
+        this.engineerRegion = region("engineer", properties.getEngineer());
+        this.blueRegion = region("blue", properties.getBlue());
+        this.toolRuleGroupRegion = region("toolRuleGroup", properties.getToolRuleGroup());
+    }
+
+    private <K, V> TtlLruCache<K, V> region(String name, ReferenceCacheProperties.Region spec) {
+        return new TtlLruCache<>(name, spec.getTtl(), properties.getNegativeTtl(), spec.getMaxSize());
+    }
+
+    /**
+     * 依 section 取得 ToolRuleGroup (key = sectionId)；未快取的 section 各自非同步載入，
+     * 回傳依 sectionIds 順序串接的結果。
+     * tool-rule-group.ttl 為 0 (預設) 時不快取，每次都讀取最新的 group
+     */
+    public CompletableFuture<List<ToolRuleGroup>> getToolRuleGroupsAsync(List<String> sectionIds) {
+        if (!isToolRuleGroupCached() || sectionIds == null || sectionIds.isEmpty()) {
+            return dataLoaderService.getToolRuleGroupsAsync(sectionIds);
+        }
+        List<CompletableFuture<List<ToolRuleGroup>>> perSection = sectionIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(sectionId -> {
+                    List<ToolRuleGroup> cached = toolRuleGroupRegion.getIfPresent(sectionId);
+                    if (cached != null) {
+                        return CompletableFuture.completedFuture(cached);
+                    }
+                    if (toolRuleGroupRegion.isKnownAbsent(sectionId)) {
+                        return CompletableFuture.completedFuture(List.<ToolRuleGroup>of());
+                    }
+                    return loadToolRuleGroupsAsync(sectionId);
+                })
+                .toList();
+        return CompletableFuture.allOf(perSection.toArray(CompletableFuture[]::new))
+                .thenApply(v -> perSection.stream()
+                        .flatMap(future -> future.join().stream())
+                        .toList());
+    }
+
+    private boolean isToolRuleGroupCached() {
+        return properties.isEnabled() && properties.getToolRuleGroup().getTtl().isPositive();
+    }
+
+    private CompletableFuture<List<ToolRuleGroup>> loadToolRuleGroupsAsync(String sectionId) {
+        long start = System.nanoTime();
+        return dataLoaderService.getToolRuleGroupsAsync(List.of(sectionId)).whenComplete((groups, ex) ->
+                toolRuleGroupRegion.getStats().recordLoad(System.nanoTime() - start, ex == null)
+        ).thenApply(groups -> {
+            List<ToolRuleGroup> loaded = List.copyOf(groups);
+            if (loaded.isEmpty()) {
+                // 沒有 group 的 section 只保留 negative-ttl，新增 group 後較快生效
+                toolRuleGroupRegion.putAbsent(sectionId);
+            } else {
+                toolRuleGroupRegion.put(sectionId, loaded);
+            }
+            log.debug("[ReferenceDataCache] load toolRuleGroups section={}, size={}", sectionId, loaded.size());
+            return loaded;
+        });
+    }
+
+    public Map<String, String> getToolIdToSectNameMap() {
+        if (!properties.isEnabled()) {
+            return dataLoaderService.getToolIdToSectNameMap();
+        }
+        return toolSectRegion.get(TOOL_SECT_KEY, k -> dataLoaderService.getToolIdToSectNameMap());
+    }
+
+    /**
+     * 依 empId 取得 IssuingEngineerInfo (key = empId)；未快取的 empId 以一次 DAO 查詢補齊，
+     * 查無資料的 empId 不會出現在回傳的 map 中
+     */
+    public Map<String, IssuingEngineerInfo> getIssuingEngineerInfos(Collection<String> empIds) {
+        Map<String, IssuingEngineerInfo> found = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String empId : new LinkedHashSet<>(empIds)) {
+            IssuingEngineerInfo cached = properties.isEnabled() ? engineerRegion.getIfPresent(empId) : null;
+            if (cached != null) {
+                found.put(empId, cached);
+            } else if (empId != null && !(properties.isEnabled() && engineerRegion.isKnownAbsent(empId))) {
+                missing.add(empId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        found.putAll(loadEngineers(missing));
+        log.debug("[ReferenceDataCache] load engineers requested={}, missing={}, found={}",
+                empIds.size(), missing.size(), found.size());
+        return found;
+    }
+
+    private Map<String, IssuingEngineerInfo> loadEngineers(List<String> empIds) {
+        Map<String, IssuingEngineerInfo> loaded = new LinkedHashMap<>();
+        for (IssuingEngineerInfo info : timedLoad(engineerRegion, () -> dataLoaderService.getIssuingEngineerInfo(empIds))) {
+            if (info.getEngineerId() == null || !empIds.contains(info.getEngineerId())) {
+                continue;
+            }
+            loaded.put(info.getEngineerId(), info);
+            if (properties.isEnabled()) {
+                engineerRegion.put(info.getEngineerId(), info);
+            }
+        }
+        if (properties.isEnabled()) {
+            empIds.stream().filter(id -> !loaded.containsKey(id)).forEach(engineerRegion::putAbsent);
+        }
+        return loaded;
+    }
+
+    /**
+     * 依 (recipeGroupId, toolId) 取得 chamber 索引 (key = toolId)；未快取的 tool 以一次 DAO 查詢補齊，
+     * 查無資料的 tool 回傳 {@link ToolChamberBlueIndex#EMPTY}
+     */
+    public Map<String, ToolChamberBlueIndex> getRecipeGroupCheckBlueIndex(String recipeGroupId, Collection<String> toolIds) {
+        Map<String, ToolChamberBlueIndex> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String toolId : new LinkedHashSet<>(toolIds)) {
+            ToolChamberBlueIndex cached = properties.isEnabled() ? blueRegion.getIfPresent(blueKey(recipeGroupId, toolId)) : null;
+            if (cached != null) {
+                result.put(toolId, cached);
+            } else if (properties.isEnabled() && blueRegion.isKnownAbsent(blueKey(recipeGroupId, toolId))) {
+                result.put(toolId, ToolChamberBlueIndex.EMPTY);
+            } else {
+                missing.add(toolId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        result.putAll(loadBlue(recipeGroupId, missing));
+        return result;
+    }
+
+    private Map<String, ToolChamberBlueIndex> loadBlue(String recipeGroupId, List<String> toolIds) {
+        List<RecipeGroupCheckBlue> rows = timedLoad(blueRegion, () -> dataLoaderService.getRecipeGroupCheckBlue(recipeGroupId, toolIds)).stream()
+                .filter(row -> toolIds.contains(row.getToolId()))
+                .toList();
+        Map<String, ToolChamberBlueIndex> indexes = ToolChamberBlueIndex.indexByTool(rows);
+        Map<String, ToolChamberBlueIndex> loaded = new LinkedHashMap<>();
+        for (String toolId : toolIds) {
+            ToolChamberBlueIndex index = indexes.getOrDefault(toolId, ToolChamberBlueIndex.EMPTY);
+            loaded.put(toolId, index);
+            if (!properties.isEnabled()) {
+                continue;
+            }
+            // 查無資料的 tool 只保留 negative-ttl
+            if (index == ToolChamberBlueIndex.EMPTY) {
+                blueRegion.putAbsent(blueKey(recipeGroupId, toolId));
+            } else {
+                blueRegion.put(blueKey(recipeGroupId, toolId), index);
+            }
+        }
+        log.debug("[ReferenceDataCache] load blue recipeGroupId={}, tools={}, rows={}", recipeGroupId, toolIds, rows.size());
+        return loaded;
+    }
+
+    private static <T> T timedLoad(TtlLruCache<?, ?> region, Supplier<T> loader) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T loaded = loader.get();
+            success = true;
+            return loaded;
+        } finally {
+            region.getStats().recordLoad(System.nanoTime() - start, success);
+        }
+    }
+
+    private static String blueKey(String recipeGroupId, String toolId) {
+        return recipeGroupId + "#" + toolId;
+    }
+
+    /**
+     * 以 DAO 重新載入目前快取中的所有 key 並覆蓋舊資料 (由磁碟 snapshot 還原後在背景呼叫)；
+     * 重新查詢後已不存在的 engineer 改記為查無資料
+     */
+    public void reloadAll() {
+        long start = System.nanoTime();
+        if (!toolSectRegion.asMap().isEmpty()) {
+            toolSectRegion.put(TOOL_SECT_KEY, dataLoaderService.getToolIdToSectNameMap());
+        }
+
+        List<CompletableFuture<List<ToolRuleGroup>>> groupLoads = toolRuleGroupRegion.asMap().keySet().stream()
+                .map(this::loadToolRuleGroupsAsync)
+                .toList();
+        CompletableFuture.allOf(groupLoads.toArray(CompletableFuture[]::new)).join();
+
+        List<String> empIds = new ArrayList<>(engineerRegion.asMap().keySet());
+        if (!empIds.isEmpty()) {
+            loadEngineers(empIds);
+        }
+
+        Map<String, List<String>> toolsByRecipeGroup = new LinkedHashMap<>();
+        for (String key : blueRegion.asMap().keySet()) {
+            int sep = key.lastIndexOf('#');
+            toolsByRecipeGroup.computeIfAbsent(key.substring(0, sep), k -> new ArrayList<>()).add(key.substring(sep + 1));
+        }
+        toolsByRecipeGroup.forEach(this::loadBlue);
+
+        log.info("[ReferenceDataCache] reloadAll sections={}, engineers={}, recipeGroups={} cost={} ms",
+                groupLoads.size(), empIds.size(), toolsByRecipeGroup.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 各 region 自啟動以來的統計
+     */
+    public List<CacheRegionStats> getStats() {
+        return List.of(
+                toolSectRegion.getStats().toRegionStats(CacheMetrics.SCOPE_REFERENCE, toolSectRegion.getName(), (long) toolSectRegion.size()),
+                toolRuleGroupRegion.getStats().toRegionStats(CacheMetrics.SCOPE_REFERENCE, toolRuleGroupRegion.getName(), (long) toolRuleGroupRegion.size()),
+                engineerRegion.getStats().toRegionStats(CacheMetrics.SCOPE_REFERENCE, engineerRegion.getName(), (long) engineerRegion.size()),
+                blueRegion.getStats().toRegionStats(CacheMetrics.SCOPE_REFERENCE, blueRegion.getName(), (long) blueRegion.size()));
+    }
+
+    TtlLruCache<String, Map<String, String>> toolSectRegion() {
+        return toolSectRegion;
+    }
+
+    TtlLruCache<String, IssuingEngineerInfo> engineerRegion() {
+        return engineerRegion;
+    }
+
+    TtlLruCache<String, ToolChamberBlueIndex> blueRegion() {
+        return blueRegion;
+    }
+
+    TtlLruCache<String, List<ToolRuleGroup>> toolRuleGroupRegion() {
+        return toolRuleGroupRegion;
+    }
+
+    /**
+     * 清除所有 region (參考資料已知變更時使用)
+     */
+    public void invalidateAll() {
+        toolSectRegion.invalidateAll();
+        engineerRegion.invalidateAll();
+        blueRegion.invalidateAll();
+        toolRuleGroupRegion.invalidateAll();
+        log.info("[ReferenceDataCache] all regions invalidated");
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.vo.ToolGroupIndex;
+import com.example.demo.vo.ToolRuleGroup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * process-wide 的 ToolRuleGroup 編譯結果 (tool 索引)，key = 正規化後的 section 集合。
+ * <p>
+ * ● 各 group 的版本 (groupName / updateDt / updateUser) 沒有變動時，所有批次共用同一份編譯結果。
+ * ● 版本變動時重新編譯，以 copy-on-write 方式整份替換 (ConcurrentHashMap.replace)；
+ *   讀取端不加鎖，每個批次拿到的都是一致的版本。
+ * ● 呼叫端在載入 group 之前以 {@link #nextLoadSequence()} 取得序號；載入得比目前版本早的 group
+ *   (序號較小，例如與較新批次同時進行的舊批次) 只編譯給該批次使用，不覆蓋目前版本。
+ *   不以 updateDt 比較新舊：group 刪除或還原成舊設定時最大 updateDt 可能變小。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ToolGroupIndexRegistry {
+
+    private final ReferenceCacheProperties properties;
+
+    private final ConcurrentHashMap<String, CompiledGroupIndex> compiled = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final AtomicLong loadSequence = new AtomicLong();
+
+    /**
+     * 載入 group 之前呼叫，取得本次載入的序號
+     */
+    public long nextLoadSequence() {
+        return loadSequence.incrementAndGet();
+    }
+
+    /**
+     * 取得 sectionIds 對應的編譯結果，groups 視為目前最新的載入結果
+     */
+    public CompiledGroupIndex get(List<String> sectionIds, List<ToolRuleGroup> groups) {
+        return get(sectionIds, groups, nextLoadSequence());
+    }
+
+    /**
+     * 取得 sectionIds 對應的編譯結果；groups 的版本與目前版本不同時重新編譯，
+     * 載入序號不小於目前版本時才替換
+     *
+     * @param groupLoadSequence 載入 groups 之前以 {@link #nextLoadSequence()} 取得的序號
+     */
+    public CompiledGroupIndex get(List<String> sectionIds, List<ToolRuleGroup> groups, long groupLoadSequence) {
+        String key = key(sectionIds);
+        List<GroupVersion> signature = signature(groups);
+        CompiledGroupIndex current = compiled.get(key);
+        if (current != null && current.signature().equals(signature)) {
+            return current;
+        }
+
+        CompiledGroupIndex next = compile(key, groups, signature, groupLoadSequence);
+        if (current == null) {
+            CompiledGroupIndex raced = compiled.putIfAbsent(key, next);
+            if (raced == null) {
+                trim();
+                return next;
+            }
+            return raced.signature().equals(signature) ? raced : next;
+        }
+        if (next.loadSequence() < current.loadSequence()) {
+            log.info("[GroupIndex] key={} received groups loaded earlier (loadSequence={} < {}), not replacing version {}",
+                    key, next.loadSequence(), current.loadSequence(), current.version());
+            return next;
+        }
+        if (compiled.replace(key, current, next)) {
+            log.info("[GroupIndex] key={} version {} -> {}", key, current.version(), next.version());
+        }
+        return next;
+    }
+
+    /**
+     * 目前保存的 key 數
+     */
+    public int size() {
+        return compiled.size();
+    }
+
+    public void invalidateAll() {
+        compiled.clear();
+    }
+
+    private CompiledGroupIndex compile(String key, List<ToolRuleGroup> groups, List<GroupVersion> signature, long groupLoadSequence) {
+        long start = System.nanoTime();
+        ToolGroupIndex index = ToolGroupIndex.of(groups);
+        CompiledGroupIndex result = new CompiledGroupIndex(versionSequence.incrementAndGet(), groupLoadSequence, signature, index);
+        log.info("[GroupIndex] key={} compiled version={} groups={} indexed={} cost={} ms",
+                key, result.version(), signature.size(), index.size(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * section 組合數量超過 runcard.cache.group-index-max-size 時整個清空 (一般只有各 module / section 數量級的 key)
+     */
+    private void trim() {
+        if (compiled.size() > properties.getGroupIndexMaxSize()) {
+            log.info("[GroupIndex] size {} exceeds {}, clear all", compiled.size(), properties.getGroupIndexMaxSize());
+            compiled.clear();
+        }
+    }
+
+    private static String key(List<String> sectionIds) {
+        if (sectionIds == null) {
+            return "";
+        }
+        return String.join(",", sectionIds.stream().filter(Objects::nonNull).distinct().sorted().toList());
+    }
+
+    /**
+     * 各 group 的版本；updateDt 為 null 時以 group 內容的 hash 代替
+     */
+    private static List<GroupVersion> signature(List<ToolRuleGroup> groups) {
+        if (groups == null) {
+            return List.of();
+        }
+        return groups.stream()
+                .map(group -> new GroupVersion(group.getGroupName(), group.getUpdateDt(), group.getUpdateUser(),
+                        group.getUpdateDt() == null ? group.hashCode() : 0))
+                .toList();
+    }
+
+    /**
+     * 單一 group 的版本
+     */
+    public record GroupVersion(String groupName, LocalDateTime updateDt, String updateUser, int contentHash) {
+    }
+
+    /**
+     * 一個版本的編譯結果；建立後不可變更
+     *
+     * @param version      遞增的版本號
+     * @param loadSequence 編譯所用 groups 的載入序號
+     * @param signature    編譯時各 group 的版本
+     * @param index        tool / chamber → group 索引
+     */
+    public record CompiledGroupIndex(long version,
+                                     long loadSequence,
+                                     List<GroupVersion> signature,
+                                     ToolGroupIndex index) {
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 單一 region 的 process-wide 快取：每筆資料有 TTL，超過 maxSize 時淘汰最久未使用的資料 (LRU)。
+ * <p>
+ * ● thread-safe；DAO 載入在鎖外執行，同一個 key 同時 miss 時可能重複載入 (以後寫入者為準)。
+ * ● loader 回傳 null 時不快取；呼叫端確認查無資料時可以 {@link #putAbsent} 記錄 sentinel，
+ *   sentinel 使用較短的 negative TTL，期間內 {@link #isKnownAbsent} 為 true。
+ * ● 命中 / 未命中與 {@link #get} 的載入耗時記錄於 {@link #getStats()}；
+ *   呼叫端自行批次載入時以 {@link CacheStats#recordLoad} 記錄。
+ */
+@Slf4j
+public class TtlLruCache<K, V> {
+
+    private final String name;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxSize;
+    private final LongSupplier nanoClock;
+    private final Map<K, Entry<V>> entries;
+    private final CacheStats stats = new CacheStats();
+
+    public TtlLruCache(String name, Duration ttl, int maxSize) {
+        this(name, ttl, Duration.ZERO, maxSize, System::nanoTime);
+    }
+
+    public TtlLruCache(String name, Duration ttl, Duration negativeTtl, int maxSize) {
+        this(name, ttl, negativeTtl, maxSize, System::nanoTime);
+    }
+
+    TtlLruCache(String name, Duration ttl, int maxSize, LongSupplier nanoClock) {
+        this(name, ttl, Duration.ZERO, maxSize, nanoClock);
+    }
+
+    TtlLruCache(String name, Duration ttl, Duration negativeTtl, int maxSize, LongSupplier nanoClock) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.maxSize = Math.max(1, maxSize);
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > TtlLruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * 取得資料，未快取時以 loader 載入；在 negative TTL 內確認查無資料的 key 直接回傳 null，不再呼叫 loader。
+     * loader 回傳 null 時記錄查無資料的 sentinel
+     */
+    public V get(K key, Function<K, V> loader) {
+        synchronized (entries) {
+            Entry<V> entry = liveEntry(key);
+            if (entry != null) {
+                stats.recordHit();
+                return entry.value();
+            }
+            stats.recordMiss();
+        }
+        long start = System.nanoTime();
+        V loaded;
+        try {
+            loaded = loader.apply(key);
+        } catch (RuntimeException | Error ex) {
+            stats.recordLoad(System.nanoTime() - start, false);
+            throw ex;
+        }
+        stats.recordLoad(System.nanoTime() - start, true);
+        if (loaded != null) {
+            put(key, loaded);
+        } else {
+            putAbsent(key);
+        }
+        log.debug("[TtlLruCache] {} load key={}", name, key);
+        return loaded;
+    }
+
+    /**
+     * 取得未過期的資料；過期的資料會一併移除。查無資料的 sentinel 算命中，但回傳 null
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = liveEntry(key);
+            if (entry == null) {
+                stats.recordMiss();
+                return null;
+            }
+            stats.recordHit();
+            return entry.value();
+        }
+    }
+
+    /**
+     * 在 negative TTL 內確認查無資料的 key
+     */
+    public boolean isKnownAbsent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = liveEntry(key);
+            return entry != null && entry.value() == null;
+        }
+    }
+
+    /**
+     * 記錄 key 查無資料；negative TTL 為 0 時不記錄
+     */
+    public void putAbsent(K key) {
+        if (negativeTtlNanos > 0) {
+            synchronized (entries) {
+                entries.put(key, new Entry<>(null, nanoClock.getAsLong()));
+            }
+        }
+    }
+
+    private Entry<V> liveEntry(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long ttl = entry.value() == null ? negativeTtlNanos : ttlNanos;
+        if (nanoClock.getAsLong() - entry.loadedAtNanos() >= ttl) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+            stats.recordSize(entries.size());
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 目前所有未過期資料的複本 (依最久未使用到最近使用排序，不含查無資料的 sentinel)，不影響 LRU 順序
+     */
+    public Map<K, V> asMap() {
+        synchronized (entries) {
+            long now = nanoClock.getAsLong();
+            Map<K, V> copy = new LinkedHashMap<>();
+            entries.forEach((key, entry) -> {
+                if (entry.value() != null && now - entry.loadedAtNanos() < ttlNanos) {
+                    copy.put(key, entry.value());
+                }
+            });
+            return copy;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private record Entry<V>(V value, long loadedAtNanos) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 驗證 runcard 用的 executor；thread 數固定 = parallelism，確保同時執行的 runcard 有上限
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService runcardEvalExecutor(RuncardFlowProperties properties) {
+        int parallelism = Math.max(1, properties.getParallelism());
+        log.info("[ExecutorConfig] runcardEvalExecutor parallelism={}, virtualThreads={}",
+                parallelism, properties.isVirtualThreads());
+        return Executors.newFixedThreadPool(parallelism, threadFactory("rc-eval-", properties.isVirtualThreads()));
+    }
+
+    /**
+     * DataLoaderService 非同步載入用的 executor；批次開頭彼此獨立的查詢在此同時執行
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService dataLoadExecutor(RuncardFlowProperties properties) {
+        int parallelism = Math.max(1, properties.getLoadParallelism());
+        log.info("[ExecutorConfig] dataLoadExecutor parallelism={}, virtualThreads={}",
+                parallelism, properties.isVirtualThreads());
+        return Executors.newFixedThreadPool(parallelism, threadFactory("data-load-", properties.isVirtualThreads()));
+    }
+
+    /**
+     * 非同步 refresh job 專用的 executor；同時執行的 job 數與等待佇列皆有上限，
+     * 佇列滿時拒絕新 job，避免大量批次擠壓互動式的 /refresh 呼叫
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService refreshJobExecutor(RuncardFlowProperties properties) {
+        int parallelism = Math.max(1, properties.getJobParallelism());
+        int queueCapacity = Math.max(1, properties.getJobQueueCapacity());
+        log.info("[ExecutorConfig] refreshJobExecutor parallelism={}, queueCapacity={}", parallelism, queueCapacity);
+        return new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory("refresh-job-", properties.isVirtualThreads()));
+    }
+
+    /**
+     * /refresh 依 section 拆開處理用的 executor；每個 section 的批次本身會再使用上面兩個 executor，
+     * 因此獨立一個 pool，避免 section 任務佔滿 runcardEvalExecutor 而互相等待
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService sectionFanOutExecutor(RuncardFlowProperties properties) {
+        int parallelism = Math.max(1, properties.getSectionParallelism());
+        log.info("[ExecutorConfig] sectionFanOutExecutor parallelism={}", parallelism);
+        return Executors.newFixedThreadPool(parallelism, threadFactory("section-", properties.isVirtualThreads()));
+    }
+
+    static ThreadFactory threadFactory(String prefix, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : Thread.ofPlatform().name(prefix, 0).daemon(true).factory();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * ReferenceDataCache 各 region 的 TTL 與容量 (application.yaml: runcard.cache.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "runcard.cache")
+public class ReferenceCacheProperties {
+
+    /**
+     * 是否啟用 process-wide 參考資料快取；關閉時每個批次都重新向 DAO 載入
+     */
+    private boolean enabled = true;
+
+    /**
+     * tool → section 對照表
+     */
+    private Region toolSect = new Region(Duration.ofMinutes(10), 1);
+
+    /**
+     * IssuingEngineerInfo
+     */
+    private Region engineer = new Region(Duration.ofMinutes(30), 10_000);
+
+    /**
+     * RecipeGroupCheckBlue release / enable flag
+     */
+    private Region blue = new Region(Duration.ofMinutes(5), 50_000);
+
+    /**
+     * 各 section 的 ToolRuleGroup。TTL 即為 group 設定變更後最久多久生效；
+     * 預設 0 = 不快取，每個批次都讀取最新的 group (編譯結果仍依 updateDt 版本由 ToolGroupIndexRegistry 共用)
+     */
+    private Region toolRuleGroup = new Region(Duration.ZERO, 1_000);
+
+    /**
+     * ToolGroupIndexRegistry 最多保存幾組 section 組合的編譯結果，超過時整個清空
+     */
+    private int groupIndexMaxSize = 1_000;
+
+    /**
+     * ReferenceDataCache 查無資料的 sentinel 保留多久 (所有 region 共用)；0 代表不快取查無資料。
+     * BatchCache 的 sentinel 與批次同生同滅，此值為 0 時同樣不記錄
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    /**
+     * 啟動時是否預先載入各 module 的 ToolRuleGroup 與參考資料 (完成後才對外提供服務)
+     */
+    private boolean warmUpEnabled = true;
+
+    /**
+     * 預熱發卡工程師資料時，查詢多久以內的 runcard
+     */
+    private Duration warmUpLookback = Duration.ofHours(4);
+
+    /**
+     * 是否定期將參考資料快取寫入磁碟 snapshot，並在啟動時由 snapshot 還原 (還原後於背景重新載入)
+     */
+    private boolean snapshotEnabled = false;
+
+    /**
+     * snapshot 檔案路徑
+     */
+    private String snapshotPath = "data/reference-cache.snapshot";
+
+    /**
+     * snapshot 寫出間隔
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * 超過此時間的 snapshot 不還原
+     */
+    private Duration snapshotMaxAge = Duration.ofHours(6);
+
+    @Data
+    public static class Region {
+        private Duration ttl;
+        private int maxSize;
+
+        public Region() {
+        }
+
+        public Region(Duration ttl, int maxSize) {
+            this.ttl = ttl;
+            this.maxSize = maxSize;
+        }
+    }
+}
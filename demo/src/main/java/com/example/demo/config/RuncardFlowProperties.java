@@ -0,0 +1,125 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * RuncardFlowService 的執行參數 (application.yaml: runcard.flow.*)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "runcard.flow")
+public class RuncardFlowProperties {
+
+    /**
+     * 是否以多執行緒平行驗證每一張 runcard
+     */
+    private boolean parallelEnabled = true;
+
+    /**
+     * 同時驗證的 runcard 上限 (executor 的 thread 數)
+     */
+    private int parallelism = 16;
+
+    /**
+     * 是否使用 virtual thread (rule check 多半在等 DAO，適合 virtual thread)
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * processRuncardBatch 是否走 streaming pipeline (mapping → 驗證 → 到站 → 組裝)
+     */
+    private boolean streamingEnabled = true;
+
+    /**
+     * pipeline 每個 stage 之間 queue 的容量
+     */
+    private int pipelineQueueCapacity = 64;
+
+    /**
+     * 到站資訊一次查詢的 runcard 數上限
+     */
+    private int arrivalBatchSize = 50;
+
+    /**
+     * 是否在 mapping 前以多筆查詢預先載入 BatchCache
+     */
+    private boolean prefetchEnabled = true;
+
+    /**
+     * streaming 模式下每次預先載入的 runcard 數
+     */
+    private int prefetchBatchSize = 200;
+
+    /**
+     * DataLoaderService 非同步載入同時執行的查詢數上限
+     */
+    private int loadParallelism = 8;
+
+    /**
+     * 分段處理的 runcard 數；0 代表不分段
+     */
+    private int chunkSize = 0;
+
+    /**
+     * /refresh/stream 的非同步回應逾時
+     */
+    private Duration streamTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 同時執行的非同步 refresh job 數上限
+     */
+    private int jobParallelism = 2;
+
+    /**
+     * 等待執行的 refresh job 數上限，超過時拒絕送出
+     */
+    private int jobQueueCapacity = 20;
+
+    /**
+     * 已結束的 refresh job (含結果) 保留多久
+     */
+    private Duration jobRetention = Duration.ofMinutes(30);
+
+    /**
+     * 定期清除過期 refresh job 的間隔
+     */
+    private Duration jobPurgeInterval = Duration.ofMinutes(1);
+
+    /**
+     * 同時送入的等價 /refresh request 是否合併為一次計算 (single-flight)；
+     * 開啟時同時進行的 batch 也依 section 共用 ToolRuleGroup 與 runcard 清單的載入
+     */
+    private boolean coalescingEnabled = true;
+
+    /**
+     * 多個 section 的 /refresh 是否依 section 拆開平行處理 (預設關閉)。
+     * 開啟後結果與不拆開時不同：每個 section 只比對自己的 ToolRuleGroup，runcard 不會再 mapping 到其他 section 的 group；
+     * 同一張 runcard 出現在多個 section 時只保留第一個 section 的結果，且結果依 section 排序。
+     * /refresh/stream 與 /refresh/jobs 不拆開。
+     */
+    private boolean sectionFanOutEnabled = false;
+
+    /**
+     * 同時處理的 section 數上限
+     */
+    private int sectionParallelism = 4;
+
+    /**
+     * 增量模式：輸入指紋與上一次相同的 runcard 沿用上一次的驗證結果，不重新驗證
+     */
+    private boolean incrementalEnabled = false;
+
+    /**
+     * 增量模式下結果最多沿用多久 (指紋未涵蓋的全域資料以此保護)
+     */
+    private Duration incrementalMaxReuseAge = Duration.ofHours(1);
+
+    /**
+     * 增量模式保留的 runcard 指紋數上限
+     */
+    private int incrementalMaxEntries = 100_000;
+}
@@ -1,18 +1,29 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.CacheMetrics;
+import com.example.demo.service.RefreshJobService;
 import com.example.demo.service.RuncardService;
+import com.example.demo.vo.CacheRegionStats;
+import com.example.demo.vo.RefreshJobResultPage;
+import com.example.demo.vo.RefreshJobStatus;
 import com.example.demo.vo.RuncardParsingRequest;
 import com.example.demo.vo.RuncardParsingResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
@@ -20,13 +31,85 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RuncardController {
 
+    static final String BATCH_CACHE_STATS_HEADER = "X-Batch-Cache-Stats";
+
     private final RuncardService runcardService;
+    private final RefreshJobService refreshJobService;
+    private final ObjectMapper objectMapper;
+    private final CacheMetrics cacheMetrics;
 
     @PostMapping("/refresh")
     public ResponseEntity<List<RuncardParsingResult>> refreshRuncardBatch(
             @Valid @RequestBody RuncardParsingRequest request) {
-        List<RuncardParsingResult> results = runcardService.refresh(request);
+        RuncardService.RefreshOutcome outcome = runcardService.refreshWithStats(request);
+
+        return ResponseEntity.ok()
+                .header(BATCH_CACHE_STATS_HEADER, cacheStatsSummary(outcome.cacheStats()))
+                .body(outcome.results());
+    }
+
+    /**
+     * 本批次各 region 的快取統計，格式 "region=hits/misses/loads"，以 ',' 分隔
+     */
+    static String cacheStatsSummary(List<CacheRegionStats> cacheStats) {
+        return cacheStats.stream()
+                .map(s -> s.getRegion() + "=" + s.getHits() + "/" + s.getMisses() + "/" + s.getLoads())
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * NDJSON 版本的 refresh：每完成一張 runcard 就寫出一行 RuncardParsingResult 並 flush。
+     * 開始寫出時 header 已送出，因此沒有 X-Batch-Cache-Stats (需要時改用 /refresh/jobs)
+     */
+    @PostMapping(value = "/refresh/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> refreshRuncardBatchStream(
+            @Valid @RequestBody RuncardParsingRequest request) {
+        StreamingResponseBody body = outputStream -> runcardService.refreshStream(request, result -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(result));
+                outputStream.write('\n');
+                outputStream.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * 非同步 refresh：立即回傳 jobId，之後以 GET /refresh/jobs/{jobId} 查詢進度
+     */
+    @PostMapping("/refresh/jobs")
+    public ResponseEntity<RefreshJobStatus> submitRefreshJob(
+            @Valid @RequestBody RuncardParsingRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(refreshJobService.submit(request));
+        } catch (RejectedExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many refresh jobs, retry later", ex);
+        }
+    }
+
+    @GetMapping("/refresh/jobs/{jobId}")
+    public ResponseEntity<RefreshJobStatus> getRefreshJobStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(refreshJobService.getStatus(jobId));
+    }
+
+    @GetMapping("/refresh/jobs/{jobId}/results")
+    public ResponseEntity<RefreshJobResultPage> getRefreshJobResults(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.of(refreshJobService.getResults(jobId, page, size));
+    }
 
-        return ResponseEntity.ok(results);
+    /**
+     * 快取統計：ReferenceDataCache 各 region 的即時統計，與所有已結束批次 BatchCache 各 region 的總計
+     */
+    @GetMapping("/metrics/cache")
+    public ResponseEntity<List<CacheRegionStats>> getCacheMetrics() {
+        return ResponseEntity.ok(cacheMetrics.snapshot());
     }
 }
@@ -7,7 +7,9 @@ import com.example.demo.po.WaferCondition;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -73,5 +75,38 @@ public class RuleDao {
                 .build();
         return Optional.of(waferCondition);
     }
-}
 
+    /**
+     * 一次查詢多張 runcard 的 ForwardProcess，key = runcardId
+     */
+    public Optional<Map<String, List<ForwardProcess>>> getForwardProcessByRuncardIds(List<String> runcardIds) {
+        Map<String, List<ForwardProcess>> result = new LinkedHashMap<>();
+        // 假資料示例：每張 runcard 都回傳同一份資料
+        for (String runcardId : runcardIds) {
+            getForwardProcess().ifPresent(list -> result.put(runcardId, list));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * 一次查詢多張 runcard 的 InhibitionCheckStatus，key = runcardId
+     */
+    public Optional<Map<String, List<InhibitionCheckStatus>>> getInhibitionCheckStatusByRuncardIds(List<String> runcardIds) {
+        Map<String, List<InhibitionCheckStatus>> result = new LinkedHashMap<>();
+        for (String runcardId : runcardIds) {
+            getInhibitionCheckStatus().ifPresent(list -> result.put(runcardId, list));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * 一次查詢多張 runcard 的 WaferCondition，key = runcardId
+     */
+    public Optional<Map<String, WaferCondition>> getWaferConditionByRuncardIds(List<String> runcardIds) {
+        Map<String, WaferCondition> result = new LinkedHashMap<>();
+        for (String runcardId : runcardIds) {
+            getWaferCondition().ifPresent(wc -> result.put(runcardId, wc));
+        }
+        return Optional.of(result);
+    }
+}
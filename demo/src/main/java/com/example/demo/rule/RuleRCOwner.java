@@ -39,7 +39,7 @@ public class RuleRCOwner implements IRuleCheck {
         List<String> employees = RuleUtil.parseStringList(settings.get("employees"));
         log.info("RuncardID: {} Condition: {} - RCOwner configured => divisions={}, departments={} sections={}, employees={},", runcardRawInfo.getRuncardId(), cond, divisions, departments, sections, employees);
 
-        Optional<String> empIdOpt = extractEmpId(runcardRawInfo.getIssuingEngineer());
+        Optional<String> empIdOpt = RuleUtil.extractEmpId(runcardRawInfo.getIssuingEngineer());
         if (empIdOpt.isEmpty()) {
             log.info("RuncardID: {} Condition: {} - issuingEngineer format unexpected => skip", runcardRawInfo.getRuncardId(), cond);
             return RuleUtil.buildSkipInfo(rule.getRuleType(), runcardRawInfo, cond, rule,
@@ -96,14 +96,4 @@ public class RuleRCOwner implements IRuleCheck {
                 .detail(detailMap)
                 .build();
     }
-
-    private Optional<String> extractEmpId(String issuingEngineer) {
-        if (issuingEngineer == null || issuingEngineer.isBlank()) {
-            return Optional.empty();
-        }
-        String[] parts = issuingEngineer.split("/", 3);
-        return (parts.length > 2 && !parts[1].isBlank())
-                ? Optional.of(parts[1].trim())
-                : Optional.empty();
-    }
 }
@@ -1,6 +1,5 @@
 package com.example.demo.rule;
 
-import com.example.demo.po.RecipeGroupCheckBlue;
 import com.example.demo.service.BatchCache;
 import com.example.demo.utils.PreCheckUtil;
 import com.example.demo.utils.RuleUtil;
@@ -57,10 +56,10 @@ public class RuleRecipeGroupCheckBlue implements IRuleCheck {
 
         List<String> toolIds = ToolChamberUtil.splitToolList(toolIdListStr);
 
-        // 5) 取得 RecipeGroupCheckBlue
-        List<RecipeGroupCheckBlue> checkBlueList =
-                cache.getRecipeGroupCheckBlue(recipeGroupId, toolIds);
-        log.info("RuncardID: {} Condition: {} - RecipeGroupCheckBlue retrieved {} for recipeGroupId: {} and toolIds: {}", runcardRawInfo.getRuncardId(), cond, checkBlueList.size(), recipeGroupId, toolIds);
+        // 5) 取得 RecipeGroupCheckBlue (每個 tool 一份 chamber → release / enable 索引)
+        Map<String, ToolChamberBlueIndex> blueIndexes =
+                cache.getRecipeGroupCheckBlueIndex(recipeGroupId, toolIds);
+        log.info("RuncardID: {} Condition: {} - RecipeGroupCheckBlue retrieved {} tool indexes for recipeGroupId: {} and toolIds: {}", runcardRawInfo.getRuncardId(), cond, blueIndexes.size(), recipeGroupId, toolIds);
 
 
         Map<String, List<List<String>>> grouped = ToolChamberUtil.parseChamberGrouped(toolIds, recipeToolPair.getRecipeId());
@@ -71,7 +70,7 @@ public class RuleRecipeGroupCheckBlue implements IRuleCheck {
 
         for (Map.Entry<String, List<List<String>>> entry : grouped.entrySet()) {
             String tool = entry.getKey();
-            boolean toolOk = isToolPass(tool, entry.getValue(), checkBlueList);
+            boolean toolOk = isToolPass(entry.getValue(), blueIndexes.getOrDefault(tool, ToolChamberBlueIndex.EMPTY));
             if (!toolOk) {
                 pass = false;
                 failTools.add(tool);
@@ -99,13 +98,12 @@ public class RuleRecipeGroupCheckBlue implements IRuleCheck {
                 .build();
     }
 
-    private boolean isToolPass(String tool,
-                               List<List<String>> andBrackets,
-                               List<RecipeGroupCheckBlue> blueList) {
+    private boolean isToolPass(List<List<String>> andBrackets,
+                               ToolChamberBlueIndex blueIndex) {
 
         // 每個 bracket (AND) 都必須 true
         for (List<String> orChambers : andBrackets) {
-            if (!isBracketPass(tool, orChambers, blueList)) {
+            if (!isBracketPass(orChambers, blueIndex)) {
                 return false;               // 任何一個 AND 失敗 → 整個 tool 失敗
             }
         }
@@ -115,45 +113,25 @@ public class RuleRecipeGroupCheckBlue implements IRuleCheck {
     /**
      * 判斷單一 bracket (OR) 是否通過
      */
-    private boolean isBracketPass(String tool,
-                                  List<String> orChambers,
-                                  List<RecipeGroupCheckBlue> blueList) {
+    private boolean isBracketPass(List<String> orChambers,
+                                  ToolChamberBlueIndex blueIndex) {
 
         // 空 list 代表 {c} 或不限定 chamber ⇒ 只要 tool 本身 OK
         if (orChambers.isEmpty()) {
-            return checkToolOnlyPass(tool, blueList);
+            return blueIndex.isToolPass();
         }
 
-        // 只要 OR 清單裡任一 chamber 命中即可
+        // 只要 OR 清單裡任一 chamber 命中即可；"%%" 表示不限定 chamber，
+        // 只要此 tool 有至少一筆 releaseFlag=1 且 enableFlag=1 即視為通過
         for (String chamber : orChambers) {
             if ("%%".equals(chamber)) {
-                if (checkToolOnlyPass(tool, blueList)) {
+                if (blueIndex.isToolPass()) {
                     return true;
                 }
-            } else if (blueList.stream().anyMatch(blue ->
-                    blue.getToolId().equals(tool) &&
-                            blue.getChamberId().equals("#" + chamber) &&
-                            "1".equals(blue.getReleaseFlag()) &&
-                            "1".equals(blue.getEnableFlag()))) {
+            } else if (blueIndex.isChamberPass(chamber)) {
                 return true;
             }
         }
         return false;
     }
-
-    /**
-     * 若只指定了 tool（不含 chamber）或 chamber="%%"，表示不限定 chamber。
-     * 只要在 checkBlueList 中能找到至少一筆:
-     * - toolId= tool
-     * - releaseFlag=1
-     * - enableFlag=1
-     * 即視為「通過」(true)。
-     */
-    private boolean checkToolOnlyPass(String tool, List<RecipeGroupCheckBlue> checkBlueList) {
-        return checkBlueList.stream().anyMatch(blue ->
-                blue.getToolId().equals(tool)
-                        && "1".equals(blue.getReleaseFlag())
-                        && "1".equals(blue.getEnableFlag())
-        );
-    }
 }
@@ -6,7 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -66,4 +68,26 @@ public class RuncardInfoDao {
         // 回傳 Optional
         return Optional.of(mockMultipleRecipeDataList);
     }
+
+    /**
+     * 一次取得多張 runcard 的 RecipeGroupsAndToolInfo，key = runcardId
+     */
+    public Optional<Map<String, List<RecipeGroupAndTool>>> getRecipeGroupsAndToolInfosByRuncardIds(List<String> runcardIds) {
+        Map<String, List<RecipeGroupAndTool>> result = new LinkedHashMap<>();
+        for (String runcardId : runcardIds) {
+            getRecipeGroupsAndToolInfos().ifPresent(list -> result.put(runcardId, list));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * 一次取得多張 runcard 的 MultipleRecipeData，key = runcardId
+     */
+    public Optional<Map<String, List<MultipleRecipeData>>> multipleRecipeDataByRuncardIds(List<String> runcardIds) {
+        Map<String, List<MultipleRecipeData>> result = new LinkedHashMap<>();
+        for (String runcardId : runcardIds) {
+            multipleRecipeData().ifPresent(list -> result.put(runcardId, list));
+        }
+        return Optional.of(result);
+    }
 }
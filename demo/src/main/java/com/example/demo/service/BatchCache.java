@@ -1,25 +1,47 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.CacheMetrics;
+import com.example.demo.cache.CacheRegion;
+import com.example.demo.cache.CacheStats;
+import com.example.demo.cache.Memoized;
+import com.example.demo.cache.ReferenceDataCache;
+import com.example.demo.config.ReferenceCacheProperties;
 import com.example.demo.po.*;
+import com.example.demo.vo.CacheRegionStats;
+import com.example.demo.vo.MultipleRecipeData;
 import com.example.demo.vo.OneConditionRecipeAndToolInfo;
 import com.example.demo.vo.RecipeGroupAndTool;
+import com.example.demo.vo.ToolChamberBlueIndex;
+import com.example.demo.vo.ToolRuleGroup;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Map;
-import java.util.TreeSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 /**
  * 一個「單批次」(prototype) 生命週期的快取。
  * <p>
  * ● 與 {@code RuncardFlowService.processRuncardBatch(..)} 同生同滅。
- * ● 完全 thread-safe（ConcurrentHashMap）。
- * ● 不做 TTL；批次跑完即釋放。
+ * ● 完全 thread-safe（{@link CacheRegion}），可供多張 runcard 平行驗證時共用；
+ *   DAO 載入在鎖外執行，同一個 key 同時 miss 只載入一次。
+ * ● 不做 TTL；批次跑完即釋放。查無資料 (loader 回傳 null、多筆查詢的結果中沒有該 key) 以 sentinel 記錄，
+ *   sentinel 在批次內不過期，每個 key 每批次只查一次 (runcard.cache.negative-ttl 為 0 時不記錄)；
+ *   runcard 專屬資料查無資料時，getter 回傳與單筆查詢相同的預設值。
+ * ● tool → section、IssuingEngineerInfo、RecipeGroupCheckBlue 等全域資料經由 process-wide 的
+ *   {@link ReferenceDataCache} 載入，跨批次共用。
+ * ● recipe / tool 對照 (OneConditionRecipeAndToolInfo) 由已快取的 RecipeGroupAndTool 與 MultipleRecipeData 組出，
+ *   RecipeGroupAndTool 每張 runcard 只載入一次，mapping 與 RecipeGroupCheckBlue 共用。
+ * ● 各 region 的命中 / 載入統計於批次結束時以 {@link #publishStats()} 彙總到 {@link CacheMetrics}。
  */
 @Slf4j
 @Component
@@ -28,85 +50,286 @@ import java.util.concurrent.ConcurrentHashMap;
 public class BatchCache {
 
     private final DataLoaderService dataLoaderService;
+    private final ReferenceDataCache referenceDataCache;
+    private final CacheMetrics cacheMetrics;
+    private final ReferenceCacheProperties cacheProperties;
 
-    private Map<String, String> toolSectMap;
+    private final Memoized<Map<String, String>> toolSectMap = new Memoized<>(this::loadToolSectMap);
 
     public Map<String, String> getToolIdToSectNameMap() {
-        if (toolSectMap == null) {
-            toolSectMap = dataLoaderService.getToolIdToSectNameMap();
-            log.debug("[BatchCache] load toolSectMap size={}", toolSectMap.size());
-        }
-        return toolSectMap;
+        return toolSectMap.get();
+    }
+
+    private Map<String, String> loadToolSectMap() {
+        Map<String, String> map = referenceDataCache.getToolIdToSectNameMap();
+        log.debug("[BatchCache] load toolSectMap size={}", map.size());
+        return map;
     }
 
-    private final Map<String, List<OneConditionRecipeAndToolInfo>> oneRuncardRecipeAndToolInfosCache = new ConcurrentHashMap<>();
-    private final Map<String, List<ForwardProcess>> forwardProcessCache = new ConcurrentHashMap<>();
-    private final Map<String, List<InhibitionCheckStatus>> inhibitionCheckStatusCache = new ConcurrentHashMap<>();
-    private final Map<String, WaferCondition> waferConditionCache = new ConcurrentHashMap<>();
-    private final Map<String, List<RecipeGroupCheckBlue>> recipeGroupCheckBlueCache = new ConcurrentHashMap<>();
-    private final Map<String, List<RecipeGroupAndTool>> recipeGroupAndToolCache = new ConcurrentHashMap<>();
-    private final Map<String, List<IssuingEngineerInfo>> engineerCache = new ConcurrentHashMap<>();
+    private final CacheRegion<String, List<OneConditionRecipeAndToolInfo>> oneRuncardRecipeAndToolInfosCache = new CacheRegion<>("recipeAndTool", this::negativeTtl);
+    private final CacheRegion<String, List<ForwardProcess>> forwardProcessCache = new CacheRegion<>("forwardProcess", this::negativeTtl);
+    private final CacheRegion<String, List<InhibitionCheckStatus>> inhibitionCheckStatusCache = new CacheRegion<>("inhibitionStatus", this::negativeTtl);
+    private final CacheRegion<String, WaferCondition> waferConditionCache = new CacheRegion<>("waferCondition", this::negativeTtl);
+    private final CacheRegion<String, ToolChamberBlueIndex> recipeGroupCheckBlueCache = new CacheRegion<>("blue", this::negativeTtl);
+    private final CacheRegion<String, List<RecipeGroupAndTool>> recipeGroupAndToolCache = new CacheRegion<>("recipeGroupAndTool", this::negativeTtl);
+    private final CacheRegion<String, List<MultipleRecipeData>> multipleRecipeDataCache = new CacheRegion<>("multipleRecipeData", this::negativeTtl);
+    private final CacheRegion<String, IssuingEngineerInfo> engineerCache = new CacheRegion<>("engineer", this::negativeTtl);
+    private final Map<String, LocalDateTime> toolRuleGroupVersions = new ConcurrentHashMap<>();
+    private final AtomicBoolean statsPublished = new AtomicBoolean();
+
+    /**
+     * 批次內的 sentinel 不過期；negative-ttl 為 0 時不記錄查無資料
+     */
+    private Duration negativeTtl() {
+        return cacheProperties.getNegativeTtl().isPositive() ? CacheRegion.NO_EXPIRY : Duration.ZERO;
+    }
 
+    /**
+     * 記錄本批次 ToolRuleGroup 的版本 (updateDt)，供增量模式計算指紋
+     */
+    public void registerToolRuleGroups(List<ToolRuleGroup> toolRuleGroups) {
+        toolRuleGroups.forEach(group -> {
+            if (group.getGroupName() != null && group.getUpdateDt() != null) {
+                toolRuleGroupVersions.put(group.getGroupName(), group.getUpdateDt());
+            }
+        });
+    }
+
+    public LocalDateTime getToolRuleGroupVersion(String groupName) {
+        return toolRuleGroupVersions.get(groupName);
+    }
+
+    /**
+     * 由本批次快取的 RecipeGroupAndTool 與 MultipleRecipeData 組出，不另外查詢 DAO
+     */
     public List<OneConditionRecipeAndToolInfo> getRecipeAndToolInfo(String rcId) {
-        return oneRuncardRecipeAndToolInfosCache.computeIfAbsent(rcId, id -> {
-            List<OneConditionRecipeAndToolInfo> lst = dataLoaderService.getRecipeAndToolInfo(id);
-            log.debug("[BatchCache] load recipeAndTool rc={}, size={}", id, lst.size());
+        return oneRuncardRecipeAndToolInfosCache.get(rcId, id -> {
+            List<OneConditionRecipeAndToolInfo> lst = dataLoaderService.buildRecipeAndToolInfo(
+                    getRecipeGroupAndTool(id), getMultipleRecipeData(id));
+            log.debug("[BatchCache] build recipeAndTool rc={}, size={}", id, lst.size());
             return lst;
         });
     }
 
     public List<ForwardProcess> getForwardProcess(String rcId) {
-        return forwardProcessCache.computeIfAbsent(rcId, id -> {
-            List<ForwardProcess> lst = dataLoaderService.getForwardProcess(id);
-            log.debug("[BatchCache] load forwardProcess rc={}, size={}", id, lst.size());
-            return lst;
+        List<ForwardProcess> lst = forwardProcessCache.get(rcId, id -> {
+            List<ForwardProcess> loaded = dataLoaderService.getForwardProcess(id);
+            log.debug("[BatchCache] load forwardProcess rc={}, size={}", id, loaded.size());
+            return loaded;
         });
+        return lst != null ? lst : new ArrayList<>();
     }
 
     public List<InhibitionCheckStatus> getInhibitionCheckStatus(String rcId) {
-        return inhibitionCheckStatusCache.computeIfAbsent(rcId, id -> {
-            List<InhibitionCheckStatus> lst = dataLoaderService.getInhibitionCheckStatus(id);
-            log.debug("[BatchCache] load inhibitionStatus rc={}, size={}", id, lst.size());
-            return lst;
+        List<InhibitionCheckStatus> lst = inhibitionCheckStatusCache.get(rcId, id -> {
+            List<InhibitionCheckStatus> loaded = dataLoaderService.getInhibitionCheckStatus(id);
+            log.debug("[BatchCache] load inhibitionStatus rc={}, size={}", id, loaded.size());
+            return loaded;
         });
+        return lst != null ? lst : new ArrayList<>();
     }
 
     public WaferCondition getWaferCondition(String rcId) {
-        return waferConditionCache.computeIfAbsent(rcId, id -> {
-            WaferCondition wc = dataLoaderService.getWaferCondition(id);
-            log.debug("[BatchCache] load waferCondition rc={}, null?={}", id, wc == null);
-            return wc;
+        WaferCondition wc = waferConditionCache.get(rcId, id -> {
+            WaferCondition loaded = dataLoaderService.getWaferCondition(id);
+            log.debug("[BatchCache] load waferCondition rc={}, null?={}", id, loaded == null);
+            return loaded;
         });
+        return wc != null ? wc : new WaferCondition();
     }
 
     /**
-     * key = recipeGroupId + '#' + sorted(toolIds)
+     * 依 (recipeGroupId, toolId) 取得 chamber 索引 (key = toolId)；
+     * 批次內尚未快取的 tool 以一次查詢補齊，tool 組合不同的 condition 也共用相同 tool 的資料
      */
-    public List<RecipeGroupCheckBlue> getRecipeGroupCheckBlue(String recipeGroupId, List<String> toolIds) {
-        String k = recipeGroupId + "#" + String.join(",", new TreeSet<>(toolIds));
-        return recipeGroupCheckBlueCache.computeIfAbsent(k, key -> {
-            List<RecipeGroupCheckBlue> lst = dataLoaderService.getRecipeGroupCheckBlue(recipeGroupId, toolIds);
-            log.debug("[BatchCache] load blue recipeGroupId={}, toolIds={}, size={}",
-                    recipeGroupId, toolIds, lst.size());
-            return lst;
-        });
+    public Map<String, ToolChamberBlueIndex> getRecipeGroupCheckBlueIndex(String recipeGroupId, List<String> toolIds) {
+        List<String> missing = toolIds.stream()
+                .filter(toolId -> !recipeGroupCheckBlueCache.containsKey(recipeGroupId + "#" + toolId))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            Map<String, ToolChamberBlueIndex> loaded = referenceDataCache.getRecipeGroupCheckBlueIndex(recipeGroupId, missing);
+            loaded.forEach((toolId, index) -> recipeGroupCheckBlueCache.putIfAbsent(recipeGroupId + "#" + toolId, index));
+            log.debug("[BatchCache] load blue recipeGroupId={}, missingTools={}", recipeGroupId, missing);
+        }
+
+        Map<String, ToolChamberBlueIndex> result = new LinkedHashMap<>();
+        for (String toolId : toolIds) {
+            result.put(toolId, recipeGroupCheckBlueCache.get(recipeGroupId + "#" + toolId,
+                    key -> referenceDataCache.getRecipeGroupCheckBlueIndex(recipeGroupId, List.of(toolId)).get(toolId)));
+        }
+        return result;
     }
 
     public List<RecipeGroupAndTool> getRecipeGroupAndTool(String rcId) {
-        return recipeGroupAndToolCache.computeIfAbsent(rcId, id -> {
-            List<RecipeGroupAndTool> list = dataLoaderService.getRecipeGroupAndTool(id);
-            log.debug("[BatchCache] load recipeGroupAndTool rc={}, size={}", id, list.size());
-            return list;
+        List<RecipeGroupAndTool> list = recipeGroupAndToolCache.get(rcId, id -> {
+            List<RecipeGroupAndTool> loaded = dataLoaderService.getRecipeGroupAndTool(id);
+            log.debug("[BatchCache] load recipeGroupAndTool rc={}, size={}", id, loaded.size());
+            return loaded;
         });
+        return list != null ? list : new ArrayList<>();
     }
 
+    public List<MultipleRecipeData> getMultipleRecipeData(String rcId) {
+        List<MultipleRecipeData> list = multipleRecipeDataCache.get(rcId, id -> {
+            List<MultipleRecipeData> loaded = dataLoaderService.getMultipleRecipeData(id);
+            log.debug("[BatchCache] load multipleRecipeData rc={}, size={}", id, loaded.size());
+            return loaded;
+        });
+        return list != null ? list : new ArrayList<>();
+    }
+
+    /**
+     * 依 empId 取得 IssuingEngineerInfo (每個 empId 各自快取)；查無資料的 empId 不在回傳清單中
+     */
     public List<IssuingEngineerInfo> getIssuingEngineerInfo(List<String> empIds) {
-        String key = String.join(",", new TreeSet<>(empIds));
-        return engineerCache.computeIfAbsent(key, k -> {
-            List<IssuingEngineerInfo> lst = dataLoaderService.getIssuingEngineerInfo(empIds);
-            log.debug("[BatchCache] load engineerIds={}, size={}", empIds, lst.size());
-            return lst;
+        return new ArrayList<>(getIssuingEngineerInfos(empIds).values());
+    }
+
+    /**
+     * multi-get (key = empId)：已快取的 empId 直接回傳，其餘以一次查詢補齊
+     */
+    public Map<String, IssuingEngineerInfo> getIssuingEngineerInfos(Collection<String> empIds) {
+        prefetchIssuingEngineers(empIds);
+        Map<String, IssuingEngineerInfo> result = new LinkedHashMap<>();
+        for (String empId : empIds) {
+            if (empId == null) {
+                continue;
+            }
+            IssuingEngineerInfo info = engineerCache.get(empId, id -> referenceDataCache.getIssuingEngineerInfos(List.of(id)).get(id));
+            if (info != null) {
+                result.put(empId, info);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 預先載入發卡工程師：批次內尚未快取的 empId 只呼叫一次多筆查詢；查無資料的 empId 也會記錄，批次內不再查詢
+     */
+    public void prefetchIssuingEngineers(Collection<String> empIds) {
+        List<String> missing = empIds.stream()
+                .filter(id -> id != null && !engineerCache.containsKey(id))
+                .distinct()
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<String, IssuingEngineerInfo> loaded = referenceDataCache.getIssuingEngineerInfos(missing);
+        missing.forEach(id -> {
+            if (loaded.containsKey(id)) {
+                engineerCache.putIfAbsent(id, loaded.get(id));
+            } else {
+                engineerCache.putAbsent(id);
+            }
+        });
+        log.debug("[BatchCache] prefetch engineers requested={}, found={}", missing.size(), loaded.size());
+    }
+
+    /**
+     * 批次預先載入：對尚未快取的 runcard，每個資料來源只呼叫一次多筆查詢並填入快取
+     */
+    public void prefetch(List<String> rcIds) {
+        try {
+            prefetchAsync(rcIds).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * 同 {@link #prefetch(List)}，但各資料來源同時載入，全部填入快取後 future 才完成
+     */
+    public CompletableFuture<Void> prefetchAsync(List<String> rcIds) {
+        return CompletableFuture.allOf(
+                prefetchRegion("recipeGroupAndTool", recipeGroupAndToolCache, rcIds, dataLoaderService::getRecipeGroupAndToolByRuncardIdsAsync),
+                prefetchRegion("multipleRecipeData", multipleRecipeDataCache, rcIds, dataLoaderService::getMultipleRecipeDataByRuncardIdsAsync),
+                prefetchRegion("forwardProcess", forwardProcessCache, rcIds, dataLoaderService::getForwardProcessByRuncardIdsAsync),
+                prefetchRegion("inhibitionStatus", inhibitionCheckStatusCache, rcIds, dataLoaderService::getInhibitionCheckStatusByRuncardIdsAsync),
+                prefetchRegion("waferCondition", waferConditionCache, rcIds, dataLoaderService::getWaferConditionByRuncardIdsAsync));
+    }
+
+    /**
+     * 以一次多筆查詢預先載入 region 中尚未載入的 runcard。
+     * 結果中沒有的 runcard (DataLoaderService *ByRuncardIds 不回傳查無資料的 runcard) 記為查無資料，
+     * 批次內不再查詢，讀取時由各 getter 給與單筆查詢相同的預設值 (空 list / 空物件)
+     */
+    private <T> CompletableFuture<Void> prefetchRegion(String regionName,
+                                                       CacheRegion<String, T> region,
+                                                       List<String> rcIds,
+                                                       Function<List<String>, CompletableFuture<Map<String, T>>> loader) {
+        List<String> missing = rcIds.stream()
+                .filter(id -> id != null && !region.containsKey(id))
+                .distinct()
+                .toList();
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return loader.apply(missing).whenComplete((loaded, ex) ->
+                region.getStats().recordLoad(System.nanoTime() - start, ex == null)
+        ).thenAccept(loaded -> {
+            loaded.forEach(region::putIfAbsent);
+            missing.stream().filter(id -> loaded.get(id) == null).forEach(region::putAbsent);
+            log.debug("[BatchCache] prefetch {} requested={}, loaded={}", regionName, missing.size(), loaded.size());
+        });
+    }
+
+    /**
+     * 本批次各 region 的統計 (key = region 名稱)
+     */
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (CacheRegion<?, ?> region : List.of(oneRuncardRecipeAndToolInfosCache, forwardProcessCache, inhibitionCheckStatusCache,
+                waferConditionCache, recipeGroupCheckBlueCache, recipeGroupAndToolCache, multipleRecipeDataCache, engineerCache)) {
+            stats.put(region.getName(), region.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 批次結束時呼叫：將本批次統計累加到 process-wide 總計並寫入 log (只會累加一次)
+     *
+     * @return 本批次各 region 的統計
+     */
+    public List<CacheRegionStats> publishStats() {
+        Map<String, CacheStats> stats = getStats();
+        if (statsPublished.compareAndSet(false, true)) {
+            cacheMetrics.recordBatch(stats);
+        }
+        List<CacheRegionStats> regionStats = new ArrayList<>(stats.size());
+        StringBuilder summary = new StringBuilder();
+        stats.forEach((region, s) -> {
+            CacheRegionStats rs = s.toRegionStats(CacheMetrics.SCOPE_BATCH, region, null);
+            regionStats.add(rs);
+            summary.append(' ').append(region).append("=").append(rs.getHits()).append('/').append(rs.getMisses())
+                    .append('/').append(rs.getLoads());
         });
+        log.info("[BatchCache] stats (hits/misses/loads){}", summary);
+        return regionStats;
+    }
+
+    /**
+     * 釋放多張 runcard 專屬的快取資料 (分段處理時每段結束後呼叫)；全域資料不受影響
+     */
+    public void evictRuncards(Collection<String> rcIds) {
+        rcIds.forEach(this::evictRuncard);
+        log.debug("[BatchCache] evict runcard regions size={}", rcIds.size());
+    }
+
+    /**
+     * 釋放單張 runcard 專屬的快取資料 (該 runcard 結果已送出後呼叫)
+     */
+    public void evictRuncard(String rcId) {
+        oneRuncardRecipeAndToolInfosCache.remove(rcId);
+        forwardProcessCache.remove(rcId);
+        inhibitionCheckStatusCache.remove(rcId);
+        waferConditionCache.remove(rcId);
+        recipeGroupAndToolCache.remove(rcId);
+        multipleRecipeDataCache.remove(rcId);
     }
 }
 
@@ -0,0 +1,79 @@
+package com.example.demo.service;
+
+import com.example.demo.vo.CacheRegionStats;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 單一批次的處理進度：runcard 總數 / 已完成數、各階段累計耗時，以及批次結束後的快取統計。
+ * <p>
+ * ● thread-safe，pipeline 各 stage 與驗證 executor 可同時更新。
+ * ● 階段耗時為各 thread 實際執行時間的加總 (平行階段可能大於牆鐘時間)。
+ */
+public class BatchProgress {
+
+    public static final String PHASE_LOAD = "load";
+    public static final String PHASE_PREFETCH = "prefetch";
+    public static final String PHASE_MAPPING = "mapping";
+    public static final String PHASE_VALIDATION = "validation";
+    public static final String PHASE_ARRIVAL = "arrival";
+    public static final String PHASE_BUILD = "build";
+
+    private final AtomicInteger total = new AtomicInteger(-1);
+    private final AtomicInteger processed = new AtomicInteger();
+    private final Map<String, AtomicLong> phaseNanos = new ConcurrentHashMap<>();
+    private volatile List<CacheRegionStats> cacheStats = List.of();
+
+    /**
+     * -1 代表 runcard 清單尚未載入
+     */
+    public int getTotal() {
+        return total.get();
+    }
+
+    public void setTotal(int value) {
+        total.set(value);
+    }
+
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    public void incrementProcessed() {
+        processed.incrementAndGet();
+    }
+
+    public void addPhaseNanos(String phase, long nanos) {
+        phaseNanos.computeIfAbsent(phase, k -> new AtomicLong()).addAndGet(nanos);
+    }
+
+    /**
+     * 本批次 BatchCache 各 region 的統計；批次結束前為空
+     */
+    public List<CacheRegionStats> getCacheStats() {
+        return cacheStats;
+    }
+
+    public void setCacheStats(List<CacheRegionStats> value) {
+        cacheStats = value == null ? List.of() : List.copyOf(value);
+    }
+
+    /**
+     * 各階段累計耗時 (ms)，依固定階段順序排列
+     */
+    public Map<String, Long> getPhaseMillis() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (String phase : new String[]{PHASE_LOAD, PHASE_PREFETCH, PHASE_MAPPING, PHASE_VALIDATION, PHASE_ARRIVAL, PHASE_BUILD}) {
+            AtomicLong nanos = phaseNanos.get(phase);
+            if (nanos != null) {
+                snapshot.put(phase, nanos.get() / 1_000_000);
+            }
+        }
+        return snapshot;
+    }
+}
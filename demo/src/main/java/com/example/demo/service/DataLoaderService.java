@@ -4,6 +4,7 @@ import com.example.demo.po.*;
 import com.example.demo.rule.RCOwnerDao;
 import com.example.demo.rule.RuleDao;
 import com.example.demo.rule.RuncardInfoDao;
+import com.example.demo.utils.SymbolTable;
 import com.example.demo.vo.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,8 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -21,6 +24,7 @@ public class DataLoaderService {
     private final RuleDao ruleDao;
     private final RuncardInfoDao runcardInfoDao;
     private final RCOwnerDao rcOwnerDao;
+    private final ExecutorService dataLoadExecutor;
 
     public Map<String, String> getToolIdToSectNameMap() {
         return Map.of("s", "s");
@@ -29,7 +33,14 @@ public class DataLoaderService {
     // 取得 ForwardProcess 資料
     public List<ForwardProcess> getForwardProcess(String runcardId) {
         Optional<List<ForwardProcess>> opt = ruleDao.getForwardProcess();
-        return opt.orElseGet(ArrayList::new);
+        return canonicalForwardProcess(opt.orElseGet(ArrayList::new));
+    }
+
+    // 一次取得多張 runcard 的 ForwardProcess 資料 (key = runcardId)
+    public Map<String, List<ForwardProcess>> getForwardProcessByRuncardIds(List<String> runcardIds) {
+        Map<String, List<ForwardProcess>> result = loadedOnly(runcardIds, ruleDao.getForwardProcessByRuncardIds(runcardIds));
+        result.values().forEach(this::canonicalForwardProcess);
+        return result;
     }
 
     // 取得 InhibitionCheckStatus 資料
@@ -38,10 +49,20 @@ public class DataLoaderService {
         return opt.orElseGet(ArrayList::new);
     }
 
+    // 一次取得多張 runcard 的 InhibitionCheckStatus 資料 (key = runcardId)
+    public Map<String, List<InhibitionCheckStatus>> getInhibitionCheckStatusByRuncardIds(List<String> runcardIds) {
+        return loadedOnly(runcardIds, ruleDao.getInhibitionCheckStatusByRuncardIds(runcardIds));
+    }
+
     // 取得 RecipeGroupCheckBlue 資料
     public List<RecipeGroupCheckBlue> getRecipeGroupCheckBlue(String recipeGroupId, List<String> toolIds) {
         Optional<List<RecipeGroupCheckBlue>> opt = ruleDao.getRecipeGroupCheckBlue();
-        return opt.orElseGet(ArrayList::new);
+        List<RecipeGroupCheckBlue> list = opt.orElseGet(ArrayList::new);
+        list.forEach(blue -> {
+            blue.setToolId(SymbolTable.intern(blue.getToolId()));
+            blue.setChamberId(SymbolTable.intern(blue.getChamberId()));
+        });
+        return list;
     }
 
     // 取得 WaferCondition 資料 (現在 RuleDao 回傳 Optional<WaferCondition>)
@@ -50,6 +71,46 @@ public class DataLoaderService {
         return opt.orElseGet(WaferCondition::new);
     }
 
+    // 一次取得多張 runcard 的 WaferCondition 資料 (key = runcardId)
+    public Map<String, WaferCondition> getWaferConditionByRuncardIds(List<String> runcardIds) {
+        return loadedOnly(runcardIds, ruleDao.getWaferConditionByRuncardIds(runcardIds));
+    }
+
+    /* ---------- 識別字串 canonical 化 (只有 tool / chamber 在載入時換成 SymbolTable 的 instance) ---------- */
+
+    private List<ForwardProcess> canonicalForwardProcess(List<ForwardProcess> list) {
+        list.forEach(fp -> fp.setToolId(SymbolTable.intern(fp.getToolId())));
+        return list;
+    }
+
+    private void canonicalToolRuleGroups(List<ToolRuleGroup> groups) {
+        for (ToolRuleGroup group : groups) {
+            if (group.getTools() == null) {
+                continue;
+            }
+            group.getTools().forEach(tool -> {
+                tool.setToolId(SymbolTable.intern(tool.getToolId()));
+                tool.setChamberId(SymbolTable.intern(tool.getChamberId()));
+            });
+        }
+    }
+
+    /**
+     * 多筆查詢的結果只保留 DAO 有回傳資料的 runcardId；查無資料的 runcardId 不在結果中，
+     * 由呼叫端決定預設值 (BatchCache 記為查無資料，讀取時給與單筆查詢相同的預設值)
+     */
+    private <T> Map<String, T> loadedOnly(List<String> runcardIds, Optional<Map<String, T>> opt) {
+        Map<String, T> loaded = opt.orElseGet(Collections::emptyMap);
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String runcardId : runcardIds) {
+            T value = loaded.get(runcardId);
+            if (value != null) {
+                result.put(runcardId, value);
+            }
+        }
+        return result;
+    }
+
 
     /**
      * 取得所有模組 (原本就存在)
@@ -88,6 +149,7 @@ public class DataLoaderService {
             mockToolGroups.add(groupB);
         }
 
+        canonicalToolRuleGroups(mockToolGroups);
         return mockToolGroups;
     }
 
@@ -158,6 +220,15 @@ public class DataLoaderService {
         List<RecipeGroupAndTool> recipeGroupAndToolList = getRecipeGroupAndTool(runcardId);
         List<MultipleRecipeData> multipleRecipeDataList = getMultipleRecipeData(runcardId);
 
+        return buildRecipeAndToolInfo(recipeGroupAndToolList, multipleRecipeDataList);
+    }
+
+    /**
+     * 由 RecipeGroupAndTool 與 MultipleRecipeData 組出各 condition 的 recipe / tool (不查詢 DAO)；
+     * BatchCache 以已快取的兩份原始資料呼叫，不必再載入一次
+     */
+    public List<OneConditionRecipeAndToolInfo> buildRecipeAndToolInfo(List<RecipeGroupAndTool> recipeGroupAndToolList,
+                                                                      List<MultipleRecipeData> multipleRecipeDataList) {
         List<OneConditionRecipeAndToolInfo> result = new ArrayList<>();
 
         // 2) 先把 RecipeGroupAndTool 直接轉成 OneConditionRecipeAndToolInfo
@@ -262,11 +333,19 @@ public class DataLoaderService {
         return opt.orElseGet(ArrayList::new);
     }
 
+    public Map<String, List<RecipeGroupAndTool>> getRecipeGroupAndToolByRuncardIds(List<String> runcardIds) {
+        return loadedOnly(runcardIds, runcardInfoDao.getRecipeGroupsAndToolInfosByRuncardIds(runcardIds));
+    }
+
     public List<MultipleRecipeData> getMultipleRecipeData(String runcardId) {
         Optional<List<MultipleRecipeData>> opt = runcardInfoDao.multipleRecipeData();
         return opt.orElseGet(ArrayList::new);
     }
 
+    public Map<String, List<MultipleRecipeData>> getMultipleRecipeDataByRuncardIds(List<String> runcardIds) {
+        return loadedOnly(runcardIds, runcardInfoDao.multipleRecipeDataByRuncardIds(runcardIds));
+    }
+
     public List<ArrivalStatus> getRuncardArrivalStatuses(List<String> runcardIds) {
         if (runcardIds == null || runcardIds.isEmpty()) {
             return Collections.emptyList();
@@ -287,4 +366,34 @@ public class DataLoaderService {
         Optional<List<IssuingEngineerInfo>> engineerInfos = rcOwnerDao.issuingEngineerInfo(issuingEngineerIdList);
         return engineerInfos.orElseGet(ArrayList::new);
     }
+
+    /* ---------- 非同步載入 (於 dataLoadExecutor 執行，彼此獨立的查詢可同時進行) ---------- */
+
+    public CompletableFuture<List<ToolRuleGroup>> getToolRuleGroupsAsync(List<String> sectionIds) {
+        return CompletableFuture.supplyAsync(() -> getToolRuleGroups(sectionIds), dataLoadExecutor);
+    }
+
+    public CompletableFuture<Optional<List<RuncardRawInfo>>> getQueryRuncardBatchAsync(List<String> sectionIds, LocalDateTime startTime, LocalDateTime endTime) {
+        return CompletableFuture.supplyAsync(() -> getQueryRuncardBatch(sectionIds, startTime, endTime), dataLoadExecutor);
+    }
+
+    public CompletableFuture<Map<String, List<ForwardProcess>>> getForwardProcessByRuncardIdsAsync(List<String> runcardIds) {
+        return CompletableFuture.supplyAsync(() -> getForwardProcessByRuncardIds(runcardIds), dataLoadExecutor);
+    }
+
+    public CompletableFuture<Map<String, List<InhibitionCheckStatus>>> getInhibitionCheckStatusByRuncardIdsAsync(List<String> runcardIds) {
+        return CompletableFuture.supplyAsync(() -> getInhibitionCheckStatusByRuncardIds(runcardIds), dataLoadExecutor);
+    }
+
+    public CompletableFuture<Map<String, WaferCondition>> getWaferConditionByRuncardIdsAsync(List<String> runcardIds) {
+        return CompletableFuture.supplyAsync(() -> getWaferConditionByRuncardIds(runcardIds), dataLoadExecutor);
+    }
+
+    public CompletableFuture<Map<String, List<RecipeGroupAndTool>>> getRecipeGroupAndToolByRuncardIdsAsync(List<String> runcardIds) {
+        return CompletableFuture.supplyAsync(() -> getRecipeGroupAndToolByRuncardIds(runcardIds), dataLoadExecutor);
+    }
+
+    public CompletableFuture<Map<String, List<MultipleRecipeData>>> getMultipleRecipeDataByRuncardIdsAsync(List<String> runcardIds) {
+        return CompletableFuture.supplyAsync(() -> getMultipleRecipeDataByRuncardIds(runcardIds), dataLoadExecutor);
+    }
 }
@@ -0,0 +1,155 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RuncardFlowProperties;
+import com.example.demo.vo.RefreshJobResultPage;
+import com.example.demo.vo.RefreshJobStatus;
+import com.example.demo.vo.RuncardParsingRequest;
+import com.example.demo.vo.RuncardParsingResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 非同步 refresh job：送出後立即回傳 jobId，批次在 refreshJobExecutor 上執行，
+ * 可查詢進度 (已完成 / 總數、各階段耗時) 並分頁取回已完成的結果。
+ * <p>
+ * 已結束的 job 保留 runcard.flow.job-retention 後清除：每 runcard.flow.job-purge-interval 定期清除一次，
+ * 送出與查詢時也會順便清除，沒有新的送出時結果也不會一直留在記憶體中。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshJobService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final RuncardFlowService runcardFlowService;
+    private final RuncardFlowProperties flowProperties;
+    private final ExecutorService refreshJobExecutor;
+
+    private final Map<String, RefreshJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 送出 job；executor 的等待佇列已滿時丟出 RejectedExecutionException
+     */
+    public RefreshJobStatus submit(RuncardParsingRequest request) {
+        purgeExpired();
+        RefreshJob job = new RefreshJob(UUID.randomUUID().toString(), request);
+        jobs.put(job.jobId, job);
+        try {
+            refreshJobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.jobId);
+            log.warn("[RefreshJob] rejected, queue is full: {}", ex.getMessage());
+            throw ex;
+        }
+        log.info("[RefreshJob] {} submitted sections={}", job.jobId, request.getSectionIds());
+        return job.toStatus();
+    }
+
+    public Optional<RefreshJobStatus> getStatus(String jobId) {
+        purgeExpired();
+        return Optional.ofNullable(jobs.get(jobId)).map(RefreshJob::toStatus);
+    }
+
+    /**
+     * 分頁取回已完成的結果 (page 從 0 開始)；job 執行中也可讀取目前已完成的部分
+     */
+    public Optional<RefreshJobResultPage> getResults(String jobId, int page, int size) {
+        purgeExpired();
+        RefreshJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        int safePage = Math.max(0, page);
+        int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+
+        List<RuncardParsingResult> content;
+        int totalElements;
+        synchronized (job.results) {
+            totalElements = job.results.size();
+            long from = Math.min((long) safePage * safeSize, totalElements);
+            long to = Math.min(from + safeSize, totalElements);
+            content = new ArrayList<>(job.results.subList((int) from, (int) to));
+        }
+        return Optional.of(RefreshJobResultPage.builder()
+                .jobId(jobId)
+                .state(job.state)
+                .page(safePage)
+                .size(safeSize)
+                .totalElements(totalElements)
+                .content(content)
+                .build());
+    }
+
+    private void run(RefreshJob job) {
+        job.startedAt = LocalDateTime.now();
+        job.state = RefreshJobStatus.State.RUNNING;
+        try {
+            runcardFlowService.streamRuncardBatch(job.request, result -> {
+                synchronized (job.results) {
+                    job.results.add(result);
+                }
+            }, job.progress);
+            job.state = RefreshJobStatus.State.SUCCEEDED;
+        } catch (RuntimeException | Error ex) {
+            log.error("[RefreshJob] {} failed: {}", job.jobId, ex.getMessage(), ex);
+            job.errorMessage = ex.getMessage();
+            job.state = RefreshJobStatus.State.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            log.info("[RefreshJob] {} {} processed={}/{} phases={}", job.jobId, job.state,
+                    job.progress.getProcessed(), job.progress.getTotal(), job.progress.getPhaseMillis());
+        }
+    }
+
+    @Scheduled(initialDelayString = "#{@runcardFlowProperties.jobPurgeInterval.toMillis()}",
+            fixedDelayString = "#{@runcardFlowProperties.jobPurgeInterval.toMillis()}")
+    void purgeExpired() {
+        LocalDateTime expireBefore = LocalDateTime.now().minus(flowProperties.getJobRetention());
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(expireBefore));
+    }
+
+    private static final class RefreshJob {
+        private final String jobId;
+        private final RuncardParsingRequest request;
+        private final BatchProgress progress = new BatchProgress();
+        private final List<RuncardParsingResult> results = new ArrayList<>();
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile RefreshJobStatus.State state = RefreshJobStatus.State.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String errorMessage;
+
+        private RefreshJob(String jobId, RuncardParsingRequest request) {
+            this.jobId = jobId;
+            this.request = request;
+        }
+
+        private RefreshJobStatus toStatus() {
+            return RefreshJobStatus.builder()
+                    .jobId(jobId)
+                    .state(state)
+                    .total(progress.getTotal())
+                    .processed(progress.getProcessed())
+                    .phaseMillis(progress.getPhaseMillis())
+                    .cacheStats(progress.getCacheStats())
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .errorMessage(errorMessage)
+                    .build();
+        }
+    }
+}
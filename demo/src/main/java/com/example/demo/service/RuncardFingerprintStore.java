@@ -0,0 +1,194 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RuncardFlowProperties;
+import com.example.demo.utils.RuleUtil;
+import com.example.demo.utils.ToolChamberUtil;
+import com.example.demo.vo.*;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * 增量 refresh 用：記錄每張 runcard 上一次驗證時的輸入指紋與驗證結果 (跨批次、singleton)。
+ * <p>
+ * ● 指紋涵蓋 raw info、recipe / tool condition、mapping 到的 group (含 updateDt 與 rules)、
+ *   runcard 專屬的 rule 資料來源 (forward process、inhibition、wafer condition、recipe group)、
+ *   condition 的 tool → section，以及 rule 會讀取的全域資料：有 RCOwner rule 時的 issuing engineer 資料，
+ *   有 RecipeGroupCheckBlue rule 時每個 recipe group 下各 tool 的 blue 索引。
+ * ● 指紋為上述輸入以固定順序序列化 (JSON，property 與 map key 排序) 後的 SHA-256，不依賴 hashCode。
+ * ● runcard.flow.incremental-max-reuse-age 仍限制結果最多沿用多久。
+ * ● 以 LRU 保留最多 runcard.flow.incremental-max-entries 筆。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuncardFingerprintStore {
+
+    private static final String RULE_RC_OWNER = "RCOwner";
+    private static final String RULE_RECIPE_GROUP_CHECK_BLUE = "RecipeGroupCheckBlue";
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .findAndAddModules()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final RuncardFlowProperties flowProperties;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > Math.max(1, flowProperties.getIncrementalMaxEntries());
+        }
+    };
+
+    /**
+     * 指紋相同且尚未超過沿用期限時，回傳上一次的驗證結果；fingerprint 為 null (無法計算) 時不沿用
+     */
+    public Optional<List<OneConditionToolRuleGroupResult>> findReusable(String runcardId, byte[] fingerprint) {
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(runcardId);
+        }
+        if (entry == null || !MessageDigest.isEqual(entry.fingerprint(), fingerprint)) {
+            return Optional.empty();
+        }
+        Duration maxReuseAge = flowProperties.getIncrementalMaxReuseAge();
+        if (Duration.between(entry.evaluatedAt(), Instant.now()).compareTo(maxReuseAge) >= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.conditions());
+    }
+
+    public void put(String runcardId, byte[] fingerprint, List<OneConditionToolRuleGroupResult> conditions) {
+        if (fingerprint == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(runcardId, new Entry(fingerprint.clone(), List.copyOf(conditions), Instant.now()));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 計算單張 runcard 的輸入指紋 (SHA-256)；rule 資料來源由 BatchCache 取得，批次內已預先載入。
+     * 輸入無法序列化時回傳 null (此張 runcard 不沿用結果)
+     */
+    public static byte[] fingerprint(RuncardMappingInfo mappingInfo, BatchCache cache) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            CANONICAL_MAPPER.writeValue(out, inputs(mappingInfo, cache));
+        } catch (IOException e) {
+            log.warn("RuncardID: {} fingerprint failed, result will not be reused: {}",
+                    mappingInfo.getRuncardRawInfo().getRuncardId(), e.getMessage());
+            return null;
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 驗證結果所依賴的所有輸入
+     */
+    static Map<String, Object> inputs(RuncardMappingInfo mappingInfo, BatchCache cache) {
+        RuncardRawInfo raw = mappingInfo.getRuncardRawInfo();
+        String runcardId = raw.getRuncardId();
+        List<OneConditionRecipeAndToolInfo> recipeAndToolInfos = Optional.ofNullable(cache.getRecipeAndToolInfo(runcardId)).orElse(List.of());
+        List<RecipeGroupAndTool> recipeGroupAndTools = Optional.ofNullable(cache.getRecipeGroupAndTool(runcardId)).orElse(List.of());
+
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("raw", raw);
+        inputs.put("recipeAndToolInfo", recipeAndToolInfos);
+
+        Set<String> ruleTypes = new HashSet<>();
+        List<Map<String, Object>> conditions = new ArrayList<>();
+        for (OneConditionToolRuleMappingInfo condition : Optional.ofNullable(mappingInfo.getOneConditionToolRuleMappingInfos()).orElse(List.of())) {
+            Map<String, Object> groups = new TreeMap<>();
+            Optional.ofNullable(condition.getGroupRulesMap()).orElse(Map.of()).forEach((groupName, rules) -> {
+                groups.put(groupName, Arrays.asList(cache.getToolRuleGroupVersion(groupName), rules));
+                Optional.ofNullable(rules).orElse(List.of()).forEach(rule -> ruleTypes.add(rule.getRuleType()));
+            });
+            Map<String, Object> conditionInputs = new LinkedHashMap<>();
+            conditionInputs.put("condition", condition.getCondition());
+            conditionInputs.put("toolChambers", condition.getToolChambers());
+            conditionInputs.put("groups", groups);
+            conditions.add(conditionInputs);
+        }
+        inputs.put("conditions", conditions);
+
+        inputs.put("forwardProcess", cache.getForwardProcess(runcardId));
+        inputs.put("inhibitionCheckStatus", cache.getInhibitionCheckStatus(runcardId));
+        inputs.put("waferCondition", cache.getWaferCondition(runcardId));
+        inputs.put("recipeGroupAndTool", recipeGroupAndTools);
+        inputs.put("conditionSectNames", recipeAndToolInfos.stream()
+                .map(info -> RuleUtil.buildConditionSectName(info.getToolIdList(), cache))
+                .toList());
+
+        if (ruleTypes.contains(RULE_RC_OWNER)) {
+            inputs.put("issuingEngineer", RuleUtil.extractEmpId(raw.getIssuingEngineer())
+                    .map(empId -> cache.getIssuingEngineerInfos(List.of(empId)))
+                    .orElse(Map.of()));
+        }
+        if (ruleTypes.contains(RULE_RECIPE_GROUP_CHECK_BLUE)) {
+            inputs.put("recipeGroupCheckBlue", blueIndexes(recipeGroupAndTools, recipeAndToolInfos, cache));
+        }
+        return inputs;
+    }
+
+    /**
+     * RecipeGroupCheckBlue 可能檢查的 (recipeGroupId, toolId)：每個 recipe group 的 tool 加上各 condition 的 tool (取聯集，寧多勿漏)
+     */
+    private static Map<String, ToolChamberBlueIndex> blueIndexes(List<RecipeGroupAndTool> recipeGroupAndTools,
+                                                                 List<OneConditionRecipeAndToolInfo> recipeAndToolInfos,
+                                                                 BatchCache cache) {
+        Set<String> conditionTools = new TreeSet<>();
+        recipeAndToolInfos.forEach(info -> conditionTools.addAll(ToolChamberUtil.splitToolList(info.getToolIdList())));
+
+        Map<String, ToolChamberBlueIndex> indexes = new TreeMap<>();
+        for (RecipeGroupAndTool rgt : recipeGroupAndTools) {
+            if (rgt.getRecipeGroupId() == null) {
+                continue;
+            }
+            Set<String> toolIds = new TreeSet<>(conditionTools);
+            toolIds.addAll(ToolChamberUtil.splitToolList(rgt.getToolIdList()));
+            if (toolIds.isEmpty()) {
+                continue;
+            }
+            Map<String, ToolChamberBlueIndex> byTool = Optional.ofNullable(
+                    cache.getRecipeGroupCheckBlueIndex(rgt.getRecipeGroupId(), List.copyOf(toolIds))).orElse(Map.of());
+            for (String toolId : toolIds) {
+                indexes.put(rgt.getRecipeGroupId() + "#" + toolId, byTool.getOrDefault(toolId, ToolChamberBlueIndex.EMPTY));
+            }
+        }
+        return indexes;
+    }
+
+    private record Entry(byte[] fingerprint, List<OneConditionToolRuleGroupResult> conditions, Instant evaluatedAt) {
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.ReferenceDataCache;
+import com.example.demo.cache.ToolGroupIndexRegistry;
+import com.example.demo.config.RuncardFlowProperties;
 import com.example.demo.po.ArrivalStatus;
+import com.example.demo.utils.RuleUtil;
+import com.example.demo.utils.SingleFlight;
 import com.example.demo.vo.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +14,12 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -20,17 +31,51 @@ public class RuncardFlowService {
     private final RuncardHandlerService runcardHandlerService;
     private final RunCardParserService runCardParserService;
     private final ObjectProvider<BatchCache> cacheProvider;
+    private final RuncardFlowProperties flowProperties;
+    private final ExecutorService runcardEvalExecutor;
+    private final RuncardFingerprintStore fingerprintStore;
+    private final ReferenceDataCache referenceDataCache;
+    private final ToolGroupIndexRegistry groupIndexRegistry;
+
+    /**
+     * 同時進行中的 batch 依 section 共用 ToolRuleGroup 與 runcard 清單的載入，
+     * section 集合部分重疊的 request 也只查詢一次重疊的 section
+     */
+    private final SingleFlight<String, ToolRuleGroupLoad> groupLoadFlight = new SingleFlight<>();
+    private final SingleFlight<SectionWindow, Optional<List<RuncardRawInfo>>> runcardLoadFlight = new SingleFlight<>();
 
     public List<RuncardParsingResult> processRuncardBatch(RuncardParsingRequest runcardParsingRequest) {
+        return processRuncardBatch(runcardParsingRequest, new BatchProgress());
+    }
+
+    /**
+     * 同 {@link #processRuncardBatch(RuncardParsingRequest)}，並將本批次的快取統計回報到 progress
+     */
+    public List<RuncardParsingResult> processRuncardBatch(RuncardParsingRequest runcardParsingRequest, BatchProgress progress) {
+        if (flowProperties.isStreamingEnabled()) {
+            List<RuncardParsingResult> results = new ArrayList<>();
+            streamRuncardBatch(runcardParsingRequest, results::add, progress);
+            return results;
+        }
+
+        BatchCache cache = cacheProvider.getObject();
+        try {
+            return processRuncardBatch(runcardParsingRequest, cache);
+        } finally {
+            progress.setCacheStats(cache.publishStats());
+        }
+    }
+
+    private List<RuncardParsingResult> processRuncardBatch(RuncardParsingRequest runcardParsingRequest, BatchCache cache) {
         List<String> sectionIds = runcardParsingRequest.getSectionIds();
         LocalDateTime startTime = runcardParsingRequest.getStartTime();
         LocalDateTime endTime = runcardParsingRequest.getEndTime();
-        BatchCache cache = cacheProvider.getObject();
-
-        List<ToolRuleGroup> toolRuleGroups = dataLoaderService.getToolRuleGroups(sectionIds);
-        log.info("Retrieved {} ToolRuleGroups for sections : {} between {} and {}", toolRuleGroups.size(), sectionIds, startTime, endTime);
 
-        Optional<List<RuncardRawInfo>> optionalRuncardRawInfos = dataLoaderService.getQueryRuncardBatch(sectionIds, startTime, endTime);
+        // ToolRuleGroup 與 runcard 清單互不相依，同時載入
+        CompletableFuture<ToolRuleGroupLoad> toolRuleGroupsFuture = loadToolRuleGroupsAsync(sectionIds);
+        toolRuleGroupsFuture.thenAccept(load -> log.info("Retrieved {} ToolRuleGroups for sections : {} between {} and {}",
+                load.groups().size(), sectionIds, startTime, endTime));
+        Optional<List<RuncardRawInfo>> optionalRuncardRawInfos = join(loadRuncardsAsync(sectionIds, startTime, endTime));
 
         if (optionalRuncardRawInfos.isEmpty()) {
             log.info("No Runcard found in {} between {} and {}", sectionIds, startTime, endTime);
@@ -40,23 +85,359 @@ public class RuncardFlowService {
 
         log.info("Retrieved {} Runcard Raw Data for sections : {} between {} and {}", runcardRawInfos.size(), sectionIds, startTime, endTime);
 
+        List<RuncardParsingResult> results = new ArrayList<>(runcardRawInfos.size());
+        processInChunks(runcardRawInfos, cache, chunk -> results.addAll(processChunk(chunk, sectionIds, toolRuleGroupsFuture, cache)));
+        return results;
+    }
+
+    /**
+     * 一次處理一批 runcard：預先載入 → mapping → 驗證 → 到站資訊 → 組裝結果
+     */
+    private List<RuncardParsingResult> processChunk(List<RuncardRawInfo> runcardRawInfos,
+                                                    List<String> sectionIds,
+                                                    CompletableFuture<ToolRuleGroupLoad> toolRuleGroupsFuture,
+                                                    BatchCache cache) {
+        // 預先載入與 ToolRuleGroup 同時進行，mapping 前才需要兩者都完成
+        CompletableFuture<Void> prefetchFuture = prefetchAsync(runcardRawInfos, cache);
+        ToolRuleGroupLoad toolRuleGroups = join(toolRuleGroupsFuture);
+        cache.registerToolRuleGroups(toolRuleGroups.groups());
+        join(prefetchFuture);
+
         // 建立該 module 下所有 Runcard mapping 到的所有 rules
-        List<RuncardMappingInfo> oneModuleMappingInfos = getConditionMappingInfos(runcardRawInfos, toolRuleGroups, cache);
+        ToolGroupIndex groupIndex = groupIndexRegistry.get(sectionIds, toolRuleGroups.groups(), toolRuleGroups.loadSequence()).index();
+        List<RuncardMappingInfo> oneModuleMappingInfos = getConditionMappingInfos(runcardRawInfos, groupIndex, cache);
 
         List<OneRuncardRuleResult> oneModuleRuleResult = processMappingInfos(oneModuleMappingInfos, cache);
 
         List<RuncardResult> runcardResults = saveOneModuleRuleResult(oneModuleRuleResult);
         return buildParsingResults(runcardRawInfos, runcardResults);
+    }
+
+    /**
+     * 分段處理 (runcard.flow.chunk-size > 0 時)：每段處理完即釋放該段 runcard 專屬的快取，
+     * ToolRuleGroup、tool → section 等全域資料則跨段保留；每段的耗時與 heap 使用量會記錄在 log。
+     */
+    private void processInChunks(List<RuncardRawInfo> runcardRawInfos, BatchCache cache, Consumer<List<RuncardRawInfo>> chunkProcessor) {
+        int chunkSize = flowProperties.getChunkSize();
+        if (chunkSize <= 0 || runcardRawInfos.size() <= chunkSize) {
+            chunkProcessor.accept(runcardRawInfos);
+            return;
+        }
+
+        int totalChunks = (runcardRawInfos.size() + chunkSize - 1) / chunkSize;
+        long batchStart = System.nanoTime();
+        for (int i = 0; i < totalChunks; i++) {
+            List<RuncardRawInfo> chunk = runcardRawInfos.subList(i * chunkSize, Math.min((i + 1) * chunkSize, runcardRawInfos.size()));
+            long start = System.nanoTime();
+
+            chunkProcessor.accept(chunk);
+            cache.evictRuncards(chunk.stream().map(RuncardRawInfo::getRuncardId).filter(Objects::nonNull).toList());
+
+            long costMs = (System.nanoTime() - start) / 1_000_000;
+            Runtime runtime = Runtime.getRuntime();
+            long heapUsedMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+            log.info("[ChunkTiming] chunk {}/{} size={} cost={} ms heapUsed={} MB",
+                    i + 1, totalChunks, chunk.size(), costMs, heapUsedMb);
+        }
+        log.info("[ChunkTiming] {} runcards in {} chunks (chunkSize={}) total cost={} ms",
+                runcardRawInfos.size(), totalChunks, chunkSize, (System.nanoTime() - batchStart) / 1_000_000);
+    }
+
+    /**
+     * 以 streaming pipeline 處理一個批次：mapping → 驗證 → 到站資訊 → 組裝結果。
+     * 每完成一張 runcard 就交給 sink (依 runcard 原始順序)，stage 之間以 bounded queue 串接，
+     * 該 runcard 的中間物件在結果送出後即可被回收。
+     */
+    public void streamRuncardBatch(RuncardParsingRequest runcardParsingRequest, Consumer<RuncardParsingResult> sink) {
+        streamRuncardBatch(runcardParsingRequest, sink, new BatchProgress());
+    }
+
+    /**
+     * 同 {@link #streamRuncardBatch(RuncardParsingRequest, Consumer)}，並將處理進度、各階段耗時與快取統計回報到 progress
+     */
+    public void streamRuncardBatch(RuncardParsingRequest runcardParsingRequest, Consumer<RuncardParsingResult> sink, BatchProgress progress) {
+        BatchCache cache = cacheProvider.getObject();
+        try {
+            streamRuncardBatch(runcardParsingRequest, sink, progress, cache);
+        } finally {
+            progress.setCacheStats(cache.publishStats());
+        }
+    }
+
+    private void streamRuncardBatch(RuncardParsingRequest runcardParsingRequest, Consumer<RuncardParsingResult> sink,
+                                    BatchProgress progress, BatchCache cache) {
+        List<String> sectionIds = runcardParsingRequest.getSectionIds();
+        LocalDateTime startTime = runcardParsingRequest.getStartTime();
+        LocalDateTime endTime = runcardParsingRequest.getEndTime();
+
+        // ToolRuleGroup 與 runcard 清單互不相依，同時載入
+        CompletableFuture<ToolRuleGroupLoad> toolRuleGroupsFuture = loadToolRuleGroupsAsync(sectionIds);
+        toolRuleGroupsFuture.thenAccept(load -> log.info("Retrieved {} ToolRuleGroups for sections : {} between {} and {}",
+                load.groups().size(), sectionIds, startTime, endTime));
+        long loadStart = System.nanoTime();
+        Optional<List<RuncardRawInfo>> optionalRuncardRawInfos = join(loadRuncardsAsync(sectionIds, startTime, endTime));
+        progress.addPhaseNanos(BatchProgress.PHASE_LOAD, System.nanoTime() - loadStart);
+
+        if (optionalRuncardRawInfos.isEmpty()) {
+            log.info("No Runcard found in {} between {} and {}", sectionIds, startTime, endTime);
+            progress.setTotal(0);
+            sink.accept(RuncardParsingResult.builder().build());
+            return;
+        }
+        List<RuncardRawInfo> runcardRawInfos = optionalRuncardRawInfos.get();
+        progress.setTotal(runcardRawInfos.size());
+
+        log.info("Retrieved {} Runcard Raw Data for sections : {} between {} and {}", runcardRawInfos.size(), sectionIds, startTime, endTime);
 
+        processInChunks(runcardRawInfos, cache, chunk -> runPipeline(chunk, sectionIds, toolRuleGroupsFuture, cache, sink, progress));
+    }
+
+    private void runPipeline(List<RuncardRawInfo> runcardRawInfos,
+                             List<String> sectionIds,
+                             CompletableFuture<ToolRuleGroupLoad> toolRuleGroupsFuture,
+                             BatchCache cache,
+                             Consumer<RuncardParsingResult> sink,
+                             BatchProgress progress) {
+
+        try (StagePipeline pipeline = new StagePipeline("rc-pipeline", flowProperties.getPipelineQueueCapacity())) {
+            BlockingQueue<Object> mapped = pipeline.newQueue();
+            BlockingQueue<Object> validated = pipeline.newQueue();
+            BlockingQueue<Object> enriched = pipeline.newQueue();
+
+            // 1) mapping：每張 runcard 的 condition → tool#chamber → group & rules
+            //    每 prefetchBatchSize 張 runcard 先做一次批次預先載入，避免一次載入整個批次的資料
+            //    下一個 window 的預先載入與目前 window 的 mapping 同時進行
+            pipeline.stage("mapping", () -> {
+                int prefetchBatchSize = Math.max(1, flowProperties.getPrefetchBatchSize());
+                List<List<RuncardRawInfo>> windows = new ArrayList<>();
+                for (int from = 0; from < runcardRawInfos.size(); from += prefetchBatchSize) {
+                    windows.add(runcardRawInfos.subList(from, Math.min(from + prefetchBatchSize, runcardRawInfos.size())));
+                }
+
+                CompletableFuture<Void> nextPrefetch = windows.isEmpty() ? null : prefetchAsync(windows.get(0), cache);
+                long groupsWait = System.nanoTime();
+                ToolRuleGroupLoad toolRuleGroups = join(toolRuleGroupsFuture);
+                cache.registerToolRuleGroups(toolRuleGroups.groups());
+                ToolGroupIndex groupIndex = groupIndexRegistry.get(sectionIds, toolRuleGroups.groups(), toolRuleGroups.loadSequence()).index();
+                progress.addPhaseNanos(BatchProgress.PHASE_LOAD, System.nanoTime() - groupsWait);
+
+                for (int w = 0; w < windows.size(); w++) {
+                    CompletableFuture<Void> currentPrefetch = nextPrefetch;
+                    nextPrefetch = (w + 1 < windows.size()) ? prefetchAsync(windows.get(w + 1), cache) : null;
+                    long prefetchWait = System.nanoTime();
+                    join(currentPrefetch);
+                    progress.addPhaseNanos(BatchProgress.PHASE_PREFETCH, System.nanoTime() - prefetchWait);
+                    for (RuncardRawInfo runcardRawInfo : windows.get(w)) {
+                        long start = System.nanoTime();
+                        List<OneConditionRecipeAndToolInfo> oneRuncardRecipeAndToolInfos = cache.getRecipeAndToolInfo(runcardRawInfo.getRuncardId());
+                        RuncardMappingInfo mappingInfo = runcardHandlerService.buildRuncardMappingInfo(runcardRawInfo, oneRuncardRecipeAndToolInfos, groupIndex);
+                        progress.addPhaseNanos(BatchProgress.PHASE_MAPPING, System.nanoTime() - start);
+                        pipeline.put(mapped, new PipelineItem(runcardRawInfo, mappingInfo));
+                    }
+                }
+                pipeline.put(mapped, StagePipeline.END);
+            });
+
+            // 2) 驗證：平行模式下送進 runcardEvalExecutor，queue 容量即為在途 runcard 上限
+            pipeline.stage("validation", () -> {
+                Object item;
+                while ((item = pipeline.take(mapped)) != StagePipeline.END) {
+                    PipelineItem pi = (PipelineItem) item;
+                    RuncardMappingInfo mappingInfo = (RuncardMappingInfo) pi.payload();
+                    CompletableFuture<OneRuncardRuleResult> evaluation = flowProperties.isParallelEnabled()
+                            ? CompletableFuture.supplyAsync(() -> evaluateRuncard(mappingInfo, cache, progress), runcardEvalExecutor)
+                            : CompletableFuture.completedFuture(evaluateRuncard(mappingInfo, cache, progress));
+                    pipeline.put(validated, new PipelineItem(pi.raw(), evaluation));
+                }
+                pipeline.put(validated, StagePipeline.END);
+            });
+
+            // 3) 到站資訊：一次取出已就緒的多張 runcard，合併成一次查詢
+            pipeline.stage("arrival", () -> {
+                boolean done = false;
+                while (!done) {
+                    List<RuncardRawInfo> raws = new ArrayList<>();
+                    List<OneRuncardRuleResult> ruleResults = new ArrayList<>();
+                    for (Object item : pipeline.takeBatch(validated, flowProperties.getArrivalBatchSize())) {
+                        if (item == StagePipeline.END) {
+                            done = true;
+                            break;
+                        }
+                        PipelineItem pi = (PipelineItem) item;
+                        @SuppressWarnings("unchecked")
+                        CompletableFuture<OneRuncardRuleResult> evaluation = (CompletableFuture<OneRuncardRuleResult>) pi.payload();
+                        raws.add(pi.raw());
+                        ruleResults.add(join(evaluation));
+                    }
+                    if (!ruleResults.isEmpty()) {
+                        long start = System.nanoTime();
+                        List<RuncardResult> runcardResults = saveOneModuleRuleResult(ruleResults);
+                        progress.addPhaseNanos(BatchProgress.PHASE_ARRIVAL, System.nanoTime() - start);
+                        for (int i = 0; i < raws.size(); i++) {
+                            pipeline.put(enriched, new PipelineItem(raws.get(i), runcardResults.get(i)));
+                        }
+                    }
+                }
+                pipeline.put(enriched, StagePipeline.END);
+            });
+
+            // 4) 組裝結果：在呼叫端 thread 上執行，sink 不需要 thread-safe
+            try {
+                Object item;
+                while ((item = pipeline.take(enriched)) != StagePipeline.END) {
+                    PipelineItem pi = (PipelineItem) item;
+                    long start = System.nanoTime();
+                    RuncardParsingResult parsingResult = buildParsing(pi.raw(), (RuncardResult) pi.payload());
+                    progress.addPhaseNanos(BatchProgress.PHASE_BUILD, System.nanoTime() - start);
+                    sink.accept(parsingResult);
+                    progress.incrementProcessed();
+                    cache.evictRuncard(pi.raw().getRuncardId());
+                }
+            } catch (CancellationException ex) {
+                pipeline.throwIfFailed();
+                throw ex;
+            } catch (RuntimeException | Error ex) {
+                pipeline.fail(ex);
+                throw ex;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                pipeline.fail(ex);
+                throw new IllegalStateException("Runcard pipeline interrupted", ex);
+            }
+        }
+    }
+
+    /**
+     * 針對這批 runcard 一次載入各資料來源 (BatchCache 的多筆查詢，各來源同時進行)；
+     * 發卡工程師在 runcard 資料載入的同時以一次查詢補齊
+     */
+    private CompletableFuture<Void> prefetchAsync(List<RuncardRawInfo> runcardRawInfos, BatchCache cache) {
+        if (!flowProperties.isPrefetchEnabled() || runcardRawInfos.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<String> runcardIds = runcardRawInfos.stream()
+                .map(RuncardRawInfo::getRuncardId)
+                .filter(Objects::nonNull)
+                .toList();
+        CompletableFuture<Void> future = cache.prefetchAsync(runcardIds);
+
+        List<String> empIds = runcardRawInfos.stream()
+                .map(raw -> RuleUtil.extractEmpId(raw.getIssuingEngineer()))
+                .flatMap(Optional::stream)
+                .distinct()
+                .toList();
+        if (!empIds.isEmpty()) {
+            cache.prefetchIssuingEngineers(empIds);
+        }
+        return future;
+    }
+
+    /**
+     * 等待 future 完成；失敗時丟出原始的 RuntimeException 而非 CompletionException
+     */
+    /**
+     * 載入 sectionIds 的 ToolRuleGroup，並帶上載入前取得的序號 (見 {@link ToolGroupIndexRegistry#nextLoadSequence()})。
+     * coalescing 開啟時依 section 各自載入 (經過 single-flight) 再依 sectionIds 順序串接，
+     * 序號取各 section 中最早的一個
+     */
+    private CompletableFuture<ToolRuleGroupLoad> loadToolRuleGroupsAsync(List<String> sectionIds) {
+        if (!flowProperties.isCoalescingEnabled() || sectionIds == null || sectionIds.isEmpty()) {
+            long loadSequence = groupIndexRegistry.nextLoadSequence();
+            return referenceDataCache.getToolRuleGroupsAsync(sectionIds)
+                    .thenApply(groups -> new ToolRuleGroupLoad(loadSequence, groups));
+        }
+        List<CompletableFuture<ToolRuleGroupLoad>> perSection = distinctSections(sectionIds).stream()
+                .map(sectionId -> groupLoadFlight.executeAsync(sectionId, () -> {
+                    long loadSequence = groupIndexRegistry.nextLoadSequence();
+                    return referenceDataCache.getToolRuleGroupsAsync(List.of(sectionId))
+                            .thenApply(groups -> new ToolRuleGroupLoad(loadSequence, groups));
+                }))
+                .toList();
+        return CompletableFuture.allOf(perSection.toArray(CompletableFuture[]::new))
+                .thenApply(v -> {
+                    List<ToolRuleGroupLoad> loads = perSection.stream().map(CompletableFuture::join).toList();
+                    long loadSequence = loads.stream().mapToLong(ToolRuleGroupLoad::loadSequence).min().orElseThrow();
+                    return new ToolRuleGroupLoad(loadSequence, loads.stream().flatMap(load -> load.groups().stream()).toList());
+                });
+    }
+
+    /**
+     * 載入 sectionIds 在區間內的 runcard；coalescing 開啟時依 section 各自載入 (經過 single-flight) 再合併，
+     * 見 {@link #mergeSectionRuncards(List)}
+     */
+    private CompletableFuture<Optional<List<RuncardRawInfo>>> loadRuncardsAsync(List<String> sectionIds,
+                                                                               LocalDateTime startTime,
+                                                                               LocalDateTime endTime) {
+        if (!flowProperties.isCoalescingEnabled() || sectionIds == null || sectionIds.isEmpty()) {
+            return dataLoaderService.getQueryRuncardBatchAsync(sectionIds, startTime, endTime);
+        }
+        List<CompletableFuture<Optional<List<RuncardRawInfo>>>> perSection = distinctSections(sectionIds).stream()
+                .map(sectionId -> runcardLoadFlight.executeAsync(new SectionWindow(sectionId, startTime, endTime),
+                        () -> dataLoaderService.getQueryRuncardBatchAsync(List.of(sectionId), startTime, endTime)))
+                .toList();
+        return CompletableFuture.allOf(perSection.toArray(CompletableFuture[]::new))
+                .thenApply(v -> mergeSectionRuncards(perSection.stream().map(CompletableFuture::join).toList()));
+    }
+
+    /**
+     * 依 section 順序串接，同一張 runcard 只保留第一次出現；所有 section 都查無資料時與整批查詢一樣回傳 empty
+     */
+    static Optional<List<RuncardRawInfo>> mergeSectionRuncards(List<Optional<List<RuncardRawInfo>>> perSection) {
+        if (perSection.stream().allMatch(Optional::isEmpty)) {
+            return Optional.empty();
+        }
+        List<RuncardRawInfo> merged = new ArrayList<>();
+        Set<String> seenRuncardIds = new HashSet<>();
+        perSection.forEach(section -> section.ifPresent(runcards -> runcards.stream()
+                .filter(runcard -> seenRuncardIds.add(runcard.getRuncardId()))
+                .forEach(merged::add)));
+        return Optional.of(merged);
+    }
+
+    private static List<String> distinctSections(List<String> sectionIds) {
+        return sectionIds.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * pipeline 中傳遞的單張 runcard；payload 依 stage 不同為 mapping / 驗證 future / RuncardResult
+     */
+    private record PipelineItem(RuncardRawInfo raw, Object payload) {
+    }
+
+    /**
+     * 載入的 ToolRuleGroup 與載入前取得的序號
+     */
+    private record ToolRuleGroupLoad(long loadSequence, List<ToolRuleGroup> groups) {
+    }
+
+    /**
+     * runcard 清單依 section 共用載入的 key
+     */
+    private record SectionWindow(String sectionId, LocalDateTime startTime, LocalDateTime endTime) {
     }
 
     public List<RuncardMappingInfo> getConditionMappingInfos(List<RuncardRawInfo> runcardRawInfos, List<ToolRuleGroup> toolRuleGroups, BatchCache cache) {
+        return getConditionMappingInfos(runcardRawInfos, ToolGroupIndex.of(toolRuleGroups), cache);
+    }
+
+    private List<RuncardMappingInfo> getConditionMappingInfos(List<RuncardRawInfo> runcardRawInfos, ToolGroupIndex groupIndex, BatchCache cache) {
         List<RuncardMappingInfo> oneModuleMappingInfos = new ArrayList<>();
 
         for (RuncardRawInfo runcardRawInfo : runcardRawInfos) {
             List<OneConditionRecipeAndToolInfo> oneRuncardRecipeAndToolInfos = cache.getRecipeAndToolInfo(runcardRawInfo.getRuncardId());
 
-            RuncardMappingInfo oneRuncardConditionMappingInfo = runcardHandlerService.buildRuncardMappingInfo(runcardRawInfo, oneRuncardRecipeAndToolInfos, toolRuleGroups);
+            RuncardMappingInfo oneRuncardConditionMappingInfo = runcardHandlerService.buildRuncardMappingInfo(runcardRawInfo, oneRuncardRecipeAndToolInfos, groupIndex);
             oneModuleMappingInfos.add(oneRuncardConditionMappingInfo);
         }
         return oneModuleMappingInfos;
@@ -64,22 +445,79 @@ public class RuncardFlowService {
 
 
     public List<OneRuncardRuleResult> processMappingInfos(List<RuncardMappingInfo> oneModuleMappingInfos, BatchCache cache) {
+        if (flowProperties.isParallelEnabled() && oneModuleMappingInfos.size() > 1) {
+            return processMappingInfosParallel(oneModuleMappingInfos, cache);
+        }
         List<OneRuncardRuleResult> oneModuleRuleResult = new ArrayList<>();
         // 將每一張 runcard 的 runcardMappingInfo 根據不同的 rule 去做驗證
-        oneModuleMappingInfos.forEach(oneRuncardMappingInfo -> {
-            List<OneConditionToolRuleGroupResult> oneRuncardRuleResults = runCardParserService.validateMappingRules(oneRuncardMappingInfo, cache);
-
-            RuncardRawInfo runcardRawInfo = oneRuncardMappingInfo.getRuncardRawInfo();
-            log.info("RuncardID: {} validation completed. Result size : {} ",
-                    runcardRawInfo.getRuncardId(), oneRuncardRuleResults.size());
-            oneModuleRuleResult.add(OneRuncardRuleResult.builder()
-                    .runcardId(runcardRawInfo.getRuncardId())
-                    .oneConditionToolRuleGroupResults(oneRuncardRuleResults)
-                    .build());
-        });
+        oneModuleMappingInfos.forEach(oneRuncardMappingInfo ->
+                oneModuleRuleResult.add(evaluateRuncard(oneRuncardMappingInfo, cache)));
         return oneModuleRuleResult;
     }
 
+    /**
+     * 平行驗證每一張 runcard；同時執行數量由 runcardEvalExecutor 的 thread 數限制。
+     * 依輸入順序 join，因此輸出順序與 oneModuleMappingInfos 相同。
+     */
+    private List<OneRuncardRuleResult> processMappingInfosParallel(List<RuncardMappingInfo> oneModuleMappingInfos, BatchCache cache) {
+        List<CompletableFuture<OneRuncardRuleResult>> futures = oneModuleMappingInfos.stream()
+                .map(oneRuncardMappingInfo -> CompletableFuture.supplyAsync(
+                        () -> evaluateRuncard(oneRuncardMappingInfo, cache), runcardEvalExecutor))
+                .toList();
+
+        List<OneRuncardRuleResult> oneModuleRuleResult = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<OneRuncardRuleResult> future : futures) {
+                oneModuleRuleResult.add(future.join());
+            }
+        } catch (CompletionException ex) {
+            futures.forEach(f -> f.cancel(true));
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ex;
+        }
+        return oneModuleRuleResult;
+    }
+
+    private OneRuncardRuleResult evaluateRuncard(RuncardMappingInfo oneRuncardMappingInfo, BatchCache cache, BatchProgress progress) {
+        long start = System.nanoTime();
+        try {
+            return evaluateRuncard(oneRuncardMappingInfo, cache);
+        } finally {
+            progress.addPhaseNanos(BatchProgress.PHASE_VALIDATION, System.nanoTime() - start);
+        }
+    }
+
+    private OneRuncardRuleResult evaluateRuncard(RuncardMappingInfo oneRuncardMappingInfo, BatchCache cache) {
+        RuncardRawInfo runcardRawInfo = oneRuncardMappingInfo.getRuncardRawInfo();
+        List<OneConditionToolRuleGroupResult> oneRuncardRuleResults;
+        if (flowProperties.isIncrementalEnabled() && runcardRawInfo.getRuncardId() != null) {
+            // 增量模式：輸入指紋未變時沿用上一次的驗證結果
+            byte[] fingerprint = RuncardFingerprintStore.fingerprint(oneRuncardMappingInfo, cache);
+            Optional<List<OneConditionToolRuleGroupResult>> reusable = fingerprintStore.findReusable(runcardRawInfo.getRuncardId(), fingerprint);
+            if (reusable.isPresent()) {
+                log.info("RuncardID: {} inputs unchanged, reuse previous result. Result size : {} ",
+                        runcardRawInfo.getRuncardId(), reusable.get().size());
+                return OneRuncardRuleResult.builder()
+                        .runcardId(runcardRawInfo.getRuncardId())
+                        .oneConditionToolRuleGroupResults(reusable.get())
+                        .build();
+            }
+            oneRuncardRuleResults = runCardParserService.validateMappingRules(oneRuncardMappingInfo, cache);
+            fingerprintStore.put(runcardRawInfo.getRuncardId(), fingerprint, oneRuncardRuleResults);
+        } else {
+            oneRuncardRuleResults = runCardParserService.validateMappingRules(oneRuncardMappingInfo, cache);
+        }
+
+        log.info("RuncardID: {} validation completed. Result size : {} ",
+                runcardRawInfo.getRuncardId(), oneRuncardRuleResults.size());
+        return OneRuncardRuleResult.builder()
+                .runcardId(runcardRawInfo.getRuncardId())
+                .oneConditionToolRuleGroupResults(oneRuncardRuleResults)
+                .build();
+    }
+
     public List<RuncardResult> saveOneModuleRuleResult(List<OneRuncardRuleResult> oneModuleRuleResult) {
         List<String> runCardList = oneModuleRuleResult.stream()
                 .map(OneRuncardRuleResult::getRuncardId)
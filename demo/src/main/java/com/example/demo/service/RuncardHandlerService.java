@@ -16,14 +16,19 @@ public class RuncardHandlerService {
      * 建立一個 RuncardMappingInfo，代表該 runcard 下的多個 condition mapping 的結果 (包含 tool#chamber 以及 group & rules)。
      */
     public RuncardMappingInfo buildRuncardMappingInfo(RuncardRawInfo runcardRawInfo, List<OneConditionRecipeAndToolInfo> oneRuncardRecipeAndToolInfos, List<ToolRuleGroup> toolRuleGroups) {
+        return buildRuncardMappingInfo(runcardRawInfo, oneRuncardRecipeAndToolInfos, ToolGroupIndex.of(toolRuleGroups));
+    }
+
+    /**
+     * 同 {@link #buildRuncardMappingInfo(RuncardRawInfo, List, List)}，使用批次內共用的 group 索引
+     */
+    public RuncardMappingInfo buildRuncardMappingInfo(RuncardRawInfo runcardRawInfo, List<OneConditionRecipeAndToolInfo> oneRuncardRecipeAndToolInfos, ToolGroupIndex groupIndex) {
 
         RuncardMappingInfo checkResult = checkBasicParams(runcardRawInfo, oneRuncardRecipeAndToolInfos);
         if (checkResult != null) {
             return checkResult;
         }
 
-        List<ToolRuleGroup> safeGroups = (toolRuleGroups == null || toolRuleGroups.isEmpty()) ? Collections.emptyList() : toolRuleGroups;
-
         RuncardMappingInfo mappingInfo = new RuncardMappingInfo();
         mappingInfo.setRuncardRawInfo(runcardRawInfo);
 
@@ -33,12 +38,12 @@ public class RuncardHandlerService {
             // 解析 toolList
             List<String> toolList = ToolChamberUtil.splitToolList(oneConditionRecipeAndToolInfo.getToolIdList());
             // 解析 recipeId => 產生多個 tool#chamber
-            List<String> toolChambers = ToolChamberUtil.parsingChamber(toolList, oneConditionRecipeAndToolInfo.getRecipeId());
+            List<ToolChamber> toolChambers = ToolChamberUtil.parseToolChambers(toolList, oneConditionRecipeAndToolInfo.getRecipeId());
             log.info("RuncardID: {} Condition: {} ToolChambers: {}", runcardRawInfo.getRuncardId(), oneConditionRecipeAndToolInfo.getCondition(), toolChambers);
 
             // 對這些 tool#chamber 進行 mapping
             // 同個 condition 下可能會 mapping 到多個 group 因此使用 Map
-            Map<String, List<Rule>> groupRulesMap = mappingRules(toolChambers, safeGroups);
+            Map<String, List<Rule>> groupRulesMap = groupIndex.match(toolChambers);
             log.info("RuncardID: {} Condition: {} GroupRulesMap: {}", runcardRawInfo.getRuncardId(), oneConditionRecipeAndToolInfo.getCondition(), groupRulesMap);
 
             OneConditionToolRuleMappingInfo oneConditionToolRuleMappingInfo = new OneConditionToolRuleMappingInfo();
@@ -55,57 +60,12 @@ public class RuncardHandlerService {
     }
 
 
-    public Map<String, List<Rule>> mappingRules(List<String> toolChambers, List<ToolRuleGroup> toolGroups) {
-        Map<String, List<Rule>> resultMap = new HashMap<>();
-        if (toolGroups == null || toolGroups.isEmpty() || toolChambers.isEmpty()) {
-            return resultMap;
-        }
-
-        // 逐一比對 group
-        for (ToolRuleGroup group : toolGroups) {
-            if (group.getTools() == null || group.getTools().isEmpty()) {
-                continue;
-            }
-
-            // 檢查該 group 是否有 tool#chamber 與當前 toolChambers match
-            boolean groupMatched = false;
-
-            for (String tc : toolChambers) {
-                // 先拆出條件端的 tool 與 chamber
-                String tcTool = tc.contains("#") ? tc.substring(0, tc.indexOf('#')) : tc;
-                String tcChamber = tc.contains("#") ? tc.substring(tc.indexOf('#') + 1) : "";
-
-                for (ToolInfo ti : group.getTools()) {
-                    String gTool = ti.getToolId();
-                    String gChamber = ti.getChamberId() == null ? "" : ti.getChamberId().trim();
-
-                    /* 比對規則
-                     * 1) 若 group 端 chamber  為空字串 ⇒ 代表僅比對 toolId
-                     * 2) 若條件端 chamber 為 "%%"   ⇒ 代表 wildcard，只需 toolId 相同
-                     * 3) 其餘           ⇒ toolId 與 chamber 皆需相同
-                     */
-                    boolean matched;
-                    if (gChamber.isEmpty()) {
-                        matched = gTool.equals(tcTool);
-                    } else if ("%%".equals(tcChamber)) {
-                        matched = gTool.equals(tcTool);
-                    } else {
-                        matched = gTool.equals(tcTool) && gChamber.equals(tcChamber);
-                    }
-
-                    if (matched) {
-                        groupMatched = true;
-                        break;
-                    }
-                }
-                if (groupMatched) break;
-            }
-
-            if (groupMatched && group.getGroupName() != null && group.getRules() != null) {
-                resultMap.put(group.getGroupName(), group.getRules());
-            }
-        }
-        return resultMap;
+    /**
+     * 找出與 toolChambers 相符的 group：groupName → rules。
+     * 批次處理請先以 {@link ToolGroupIndex#of} 建立索引，再使用 {@link #buildRuncardMappingInfo(RuncardRawInfo, List, ToolGroupIndex)}
+     */
+    public Map<String, List<Rule>> mappingRules(List<ToolChamber> toolChambers, List<ToolRuleGroup> toolGroups) {
+        return ToolGroupIndex.of(toolGroups).match(toolChambers);
     }
 
     private RuncardMappingInfo checkBasicParams(
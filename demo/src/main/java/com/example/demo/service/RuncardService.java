@@ -1,20 +1,183 @@
 package com.example.demo.service;
 
+import com.example.demo.config.RuncardFlowProperties;
+import com.example.demo.utils.SingleFlight;
+import com.example.demo.vo.CacheRegionStats;
 import com.example.demo.vo.RuncardParsingRequest;
 import com.example.demo.vo.RuncardParsingResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RuncardService {
     private final RuncardFlowService runcardFlowService;
+    private final RuncardFlowProperties flowProperties;
+    private final ExecutorService sectionFanOutExecutor;
+
+    /**
+     * 同時送入的等價 request (section 集合與時間區間相同) 共用同一次計算
+     */
+    private final SingleFlight<RequestKey, RefreshOutcome> refreshFlight = new SingleFlight<>();
 
     public List<RuncardParsingResult> refresh(RuncardParsingRequest runcardParsingRequest) {
-        return runcardFlowService.processRuncardBatch(runcardParsingRequest);
+        return refreshWithStats(runcardParsingRequest).results();
+    }
+
+    /**
+     * 同 {@link #refresh(RuncardParsingRequest)}，一併回傳本批次各 region 的快取統計
+     * (共用計算的呼叫端拿到同一份統計；依 section 拆開時為各 section 批次的合計)
+     */
+    public RefreshOutcome refreshWithStats(RuncardParsingRequest runcardParsingRequest) {
+        RequestKey key = RequestKey.of(runcardParsingRequest);
+        if (flowProperties.isSectionFanOutEnabled() && key.sectionIds().size() > 1) {
+            return refreshBySection(key);
+        }
+        return refreshOnce(key, runcardParsingRequest);
+    }
+
+    /**
+     * 依 section 拆成多個 request 平行處理，每個 section 只與自己的 ToolRuleGroup 比對；
+     * 各 section 也經過 single-flight，因此部分重疊的 request 可共用相同 section 的計算。
+     * <p>
+     * 與不拆開的結果不同 (因此預設關閉，見 runcard.flow.section-fan-out-enabled)：
+     * runcard 不會 mapping 到同一 request 中其他 section 的 group，重複出現的 runcard 只保留第一個 section 的結果
+     */
+    private RefreshOutcome refreshBySection(RequestKey key) {
+        List<CompletableFuture<RefreshOutcome>> futures = key.sectionIds().stream()
+                .map(sectionId -> {
+                    RequestKey sectionKey = new RequestKey(List.of(sectionId), key.startTime(), key.endTime());
+                    return CompletableFuture.supplyAsync(() -> refreshOnce(sectionKey, sectionKey.toRequest()), sectionFanOutExecutor);
+                })
+                .toList();
+
+        List<List<RuncardParsingResult>> sectionResults = new ArrayList<>(futures.size());
+        List<CacheRegionStats> sectionStats = new ArrayList<>();
+        try {
+            for (CompletableFuture<RefreshOutcome> future : futures) {
+                RefreshOutcome outcome = future.join();
+                sectionResults.add(outcome.results());
+                sectionStats.addAll(outcome.cacheStats());
+            }
+        } catch (CompletionException ex) {
+            futures.forEach(f -> f.cancel(true));
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ex;
+        }
+        return new RefreshOutcome(mergeSectionResults(sectionResults), sumCacheStats(sectionStats));
+    }
+
+    /**
+     * 依 region 加總各 section 批次的統計 (次數相加，hitRate / avgLoadMillis 依加總後的次數重新計算)
+     */
+    static List<CacheRegionStats> sumCacheStats(List<CacheRegionStats> stats) {
+        Map<String, CacheRegionStats> byRegion = new LinkedHashMap<>();
+        for (CacheRegionStats s : stats) {
+            CacheRegionStats total = byRegion.computeIfAbsent(s.getRegion(), region -> CacheRegionStats.builder()
+                    .scope(s.getScope()).region(region).hits(0L).misses(0L).loads(0L).loadFailures(0L)
+                    .avgLoadMillis(0.0).loadLatencyMillis(new LinkedHashMap<>()).build());
+            long loads = total.getLoads() + nullToZero(s.getLoads());
+            if (loads > 0) {
+                double loadMillis = total.getAvgLoadMillis() * total.getLoads()
+                        + (s.getAvgLoadMillis() == null ? 0.0 : s.getAvgLoadMillis()) * nullToZero(s.getLoads());
+                total.setAvgLoadMillis(loadMillis / loads);
+            }
+            total.setHits(total.getHits() + nullToZero(s.getHits()));
+            total.setMisses(total.getMisses() + nullToZero(s.getMisses()));
+            total.setLoads(loads);
+            total.setLoadFailures(total.getLoadFailures() + nullToZero(s.getLoadFailures()));
+            if (s.getLoadLatencyMillis() != null) {
+                s.getLoadLatencyMillis().forEach((bucket, count) -> total.getLoadLatencyMillis().merge(bucket, count, Long::sum));
+            }
+        }
+        for (CacheRegionStats total : byRegion.values()) {
+            long requests = total.getHits() + total.getMisses();
+            total.setHitRate(requests == 0 ? null : (double) total.getHits() / requests);
+        }
+        return List.copyOf(byRegion.values());
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    /**
+     * 依 section 順序合併；同一張 runcard 只保留第一次出現的結果，
+     * 無 runcard 的空白結果只在所有 section 都沒有 runcard 時保留一筆
+     */
+    static List<RuncardParsingResult> mergeSectionResults(List<List<RuncardParsingResult>> sectionResults) {
+        List<RuncardParsingResult> merged = new ArrayList<>();
+        Set<String> seenRuncardIds = new HashSet<>();
+        RuncardParsingResult emptyResult = null;
+        for (List<RuncardParsingResult> results : sectionResults) {
+            for (RuncardParsingResult result : results) {
+                if (result.getRuncardId() == null) {
+                    emptyResult = emptyResult == null ? result : emptyResult;
+                } else if (seenRuncardIds.add(result.getRuncardId())) {
+                    merged.add(result);
+                }
+            }
+        }
+        if (merged.isEmpty() && emptyResult != null) {
+            return List.of(emptyResult);
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    private RefreshOutcome refreshOnce(RequestKey key, RuncardParsingRequest runcardParsingRequest) {
+        if (!flowProperties.isCoalescingEnabled()) {
+            return processOnce(runcardParsingRequest);
+        }
+        return refreshFlight.execute(key, () -> processOnce(runcardParsingRequest));
+    }
+
+    private RefreshOutcome processOnce(RuncardParsingRequest runcardParsingRequest) {
+        BatchProgress progress = new BatchProgress();
+        // 結果會交給多個呼叫端，回傳唯讀 list
+        List<RuncardParsingResult> results = Collections.unmodifiableList(
+                runcardFlowService.processRuncardBatch(runcardParsingRequest, progress));
+        return new RefreshOutcome(results, progress.getCacheStats());
+    }
+
+    /**
+     * streaming 版本的 refresh：每完成一張 runcard 就交給 sink。
+     * 快取統計在所有結果送出後才確定 (此時 response header 已送出)，只寫入 log 與 /metrics/cache 的總計；
+     * 需要單一批次統計時改用 /refresh 或 /refresh/jobs
+     */
+    public void refreshStream(RuncardParsingRequest runcardParsingRequest, Consumer<RuncardParsingResult> sink) {
+        runcardFlowService.streamRuncardBatch(runcardParsingRequest, sink);
+    }
+
+    /**
+     * 一次 refresh 的結果與本批次各 region 的快取統計
+     */
+    public record RefreshOutcome(List<RuncardParsingResult> results, List<CacheRegionStats> cacheStats) {
+    }
+
+    /**
+     * 正規化後的 request：sectionIds 去重排序，與送入順序無關
+     */
+    private record RequestKey(List<String> sectionIds, LocalDateTime startTime, LocalDateTime endTime) {
+        static RequestKey of(RuncardParsingRequest request) {
+            List<String> sectionIds = request.getSectionIds() == null
+                    ? List.of()
+                    : request.getSectionIds().stream().filter(Objects::nonNull).distinct().sorted().toList();
+            return new RequestKey(sectionIds, request.getStartTime(), request.getEndTime());
+        }
+
+        RuncardParsingRequest toRequest() {
+            return new RuncardParsingRequest(sectionIds, startTime, endTime);
+        }
     }
 }
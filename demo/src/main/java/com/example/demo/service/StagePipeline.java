@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 以 bounded queue 串接多個 stage 的簡易 pipeline。
+ * <p>
+ * ● 每個 stage 一條 virtual thread，依 FIFO 處理，因此輸出順序與輸入相同。
+ * ● queue 滿時上游會等待 (backpressure)，在途物件數量有上限。
+ * ● 任一 stage 失敗時其餘 stage 會在下一次 put / take 時中止，由 {@link #throwIfFailed()} 丟回呼叫端。
+ */
+@Slf4j
+final class StagePipeline implements AutoCloseable {
+
+    /**
+     * 結束標記，上游處理完畢後放入 queue
+     */
+    static final Object END = new Object();
+
+    private static final long POLL_MILLIS = 100;
+
+    private final String name;
+    private final int capacity;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    StagePipeline(String name, int capacity) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    BlockingQueue<Object> newQueue() {
+        return new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 啟動一個 stage；body 丟出的例外會記錄為整條 pipeline 的失敗
+     */
+    void stage(String stageName, StageBody body) {
+        Thread worker = Thread.ofVirtual()
+                .name(name + "-" + stageName)
+                .unstarted(() -> {
+                    try {
+                        body.run();
+                    } catch (CancellationException | InterruptedException ignore) {
+                        // 其他 stage 已失敗或 pipeline 已關閉
+                    } catch (Throwable ex) {
+                        fail(ex);
+                    }
+                });
+        workers.add(worker);
+        worker.start();
+    }
+
+    void put(BlockingQueue<Object> queue, Object item) throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            abortIfFailed();
+        }
+    }
+
+    Object take(BlockingQueue<Object> queue) throws InterruptedException {
+        Object item;
+        while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            abortIfFailed();
+        }
+        return item;
+    }
+
+    /**
+     * 至少取一筆，再把 queue 內已就緒的項目一併取出 (最多 max 筆)；END 一定是最後一筆
+     */
+    List<Object> takeBatch(BlockingQueue<Object> queue, int max) throws InterruptedException {
+        List<Object> batch = new ArrayList<>();
+        Object first = take(queue);
+        batch.add(first);
+        if (first == END) {
+            return batch;
+        }
+        while (batch.size() < Math.max(1, max)) {
+            Object next = queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            if (next == END) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    void fail(Throwable ex) {
+        if (failure.compareAndSet(null, ex)) {
+            log.error("[StagePipeline] {} failed: {}", name, ex.getMessage(), ex);
+        }
+    }
+
+    void throwIfFailed() {
+        Throwable ex = failure.get();
+        if (ex == null) {
+            return;
+        }
+        if (ex instanceof RuntimeException re) {
+            throw re;
+        }
+        if (ex instanceof Error err) {
+            throw err;
+        }
+        throw new IllegalStateException(ex);
+    }
+
+    private void abortIfFailed() {
+        if (failure.get() != null) {
+            throw new CancellationException(name + " aborted");
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Thread worker : workers) {
+            if (failure.get() != null) {
+                worker.interrupt();
+            }
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface StageBody {
+        void run() throws Exception;
+    }
+}
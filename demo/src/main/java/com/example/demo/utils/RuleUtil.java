@@ -121,6 +121,19 @@ public class RuleUtil {
         return false;
     }
 
+    /**
+     * issuingEngineer 格式為 "name/empId/..."，取出中間的 empId
+     */
+    public static Optional<String> extractEmpId(String issuingEngineer) {
+        if (issuingEngineer == null || issuingEngineer.isBlank()) {
+            return Optional.empty();
+        }
+        String[] parts = issuingEngineer.split("/", 3);
+        return (parts.length > 2 && !parts[1].isBlank())
+                ? Optional.of(parts[1].trim())
+                : Optional.empty();
+    }
+
     @SuppressWarnings("unchecked")
     public static List<String> parseStringList(Object obj) {
         if (obj instanceof List) {
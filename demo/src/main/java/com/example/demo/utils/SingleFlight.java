@@ -0,0 +1,90 @@
+package com.example.demo.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 相同 key 的同時呼叫只執行一次 loader，其餘呼叫端等待並取得同一份結果 (或同一個例外)。
+ * <p>
+ * ● 只合併「進行中」的呼叫；完成後立即移除，不做結果快取。
+ * ● loader 在第一個呼叫端的 thread 上執行。
+ */
+@Slf4j
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            log.info("[SingleFlight] join in-flight call key={}", key);
+            return await(existing);
+        }
+
+        try {
+            V value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * 非同步版本：loader 回傳的 future 完成前，相同 key 的呼叫端取得同一個 future。
+     * 回傳的 future 由多個呼叫端共用，呼叫端不應 cancel 或 complete 它
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            log.info("[SingleFlight] join in-flight call key={}", key);
+            return existing;
+        }
+
+        try {
+            loader.get().whenComplete((value, ex) -> {
+                inFlight.remove(key, created);
+                if (ex != null) {
+                    created.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error ex) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(ex);
+        }
+        return created;
+    }
+
+    /**
+     * 目前進行中的 key 數
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (ex.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw ex;
+        }
+    }
+}
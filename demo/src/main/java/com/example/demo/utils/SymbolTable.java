@@ -0,0 +1,44 @@
+package com.example.demo.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * process-wide 的 tool id / chamber 字串表：同內容的 tool、chamber 在載入時換成同一個 instance。
+ * <p>
+ * ● 只收錄低基數的 tool id 與 chamber token；condition、recipe id、逗號串接的 toolIdList 等一次性字串不收錄。
+ * ● 相同內容只保留一份，減少大量 runcard / group 重複字串的 heap 使用量。
+ * ● {@link String#equals(Object)} 先比對 reference，canonical instance 之間的比對不必逐字元比較。
+ * ● 超過 {@link #MAX_SYMBOLS} 時整張表清空後重新收錄，新的 tool / chamber 仍會 canonical 化；
+ *   清空前發出的 instance 仍然有效，只是與之後的 instance 比對時退回逐字元比較。
+ */
+public class SymbolTable {
+
+    static final int MAX_SYMBOLS = 100_000;
+
+    private static final ConcurrentHashMap<String, String> SYMBOLS = new ConcurrentHashMap<>();
+
+    private SymbolTable() {
+    }
+
+    /**
+     * 回傳與 value 內容相同的 canonical instance；null 原樣回傳
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = SYMBOLS.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (SYMBOLS.size() >= MAX_SYMBOLS) {
+            SYMBOLS.clear();
+        }
+        existing = SYMBOLS.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    public static int size() {
+        return SYMBOLS.size();
+    }
+}
@@ -1,93 +1,112 @@
 package com.example.demo.utils;
 
+import com.example.demo.cache.CacheMetrics;
+import com.example.demo.cache.CacheStats;
+import com.example.demo.vo.CacheRegionStats;
+import com.example.demo.vo.ToolChamber;
+
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ParsingUtil 提供與 Recipe ID 解析、Tool List 分割等相關的靜態工具方法。
- * 其中重點為 parsingChamber 及 parseChamberGrouped，
+ * 其中重點為 parseToolChambers 及 parseChamberGrouped，
  * 用於將 recipe ID (含 {} ) 轉換成對應的 tool-chamber 組合 (平鋪 or AND/OR 分組)。
+ * <p>
+ * 同一個 recipeId 在大量 condition / runcard 間重複出現，大括號結構解析一次後 memo 起來
+ * (上限 {@link #MAX_RECIPE_CHAMBERS} 筆，超過時整個清空後重新收錄，新的 recipeId 仍會 memo)，回傳的展開清單為共用的不可變更清單。
+ * recipeId 與 toolIdList 皆以單次掃描解析 (不使用 regex)，單一字元的 chamber 使用共用常數。
  */
 public class ToolChamberUtil {
 
-    private static final Pattern EXPANSION_PATTERN = Pattern.compile("\\{(.*?)\\}");
+    static final int MAX_RECIPE_CHAMBERS = 10_000;
+
+    private static final ConcurrentHashMap<String, RecipeChambers> RECIPE_CHAMBERS = new ConcurrentHashMap<>();
+    private static final CacheStats RECIPE_CHAMBER_STATS = new CacheStats();
+
+    /**
+     * 無大括號時每個 tool 的展開結果：一個 bracket，OR 清單為空 (不限定 chamber)
+     */
+    private static final List<List<String>> NO_CHAMBER = List.of(List.of());
+
+    /**
+     * {c} 的展開結果：不限定 chamber
+     */
+    private static final List<String> ANY_CHAMBER = List.of("%%");
+
+    /**
+     * 單一字元 chamber (ASCII) 的共用字串，逐字拆時不必每次建立新字串
+     */
+    private static final String[] CHAR_TOKENS = new String[128];
+
+    static {
+        for (char ch = 0; ch < CHAR_TOKENS.length; ch++) {
+            CHAR_TOKENS[ch] = SymbolTable.intern(String.valueOf(ch));
+        }
+    }
 
     /**
      * 將逗號分隔的 toolIdList 字串分割為清單。
      * 例如 "JDTM16, JDTM17, JDTM20" -> ["JDTM16","JDTM17","JDTM20"]。
      */
     public static List<String> splitToolList(String toolIdList) {
-        if (toolIdList == null || toolIdList.trim().isEmpty()) {
+        if (toolIdList == null || isBlank(toolIdList)) {
             return Collections.emptyList();
         }
-        return Stream.of(toolIdList.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
+        // 單次掃描：以 ',' 切段並去除前後空白，空段略過
+        List<String> tools = new ArrayList<>();
+        int length = toolIdList.length();
+        int start = 0;
+        while (start <= length) {
+            int comma = toolIdList.indexOf(',', start);
+            int end = comma < 0 ? length : comma;
+            int from = trimStart(toolIdList, start, end);
+            int to = trimEnd(toolIdList, from, end);
+            if (from < to) {
+                tools.add(SymbolTable.intern(toolIdList.substring(from, to)));
+            }
+            start = end + 1;
+        }
+        return tools;
     }
 
     // --------------------------------------------------------------------------
-    // 1) parsingChamber: 將 recipeId 中每個大括號內容直接「平舖」展開
+    // 1) parseToolChambers: 將 recipeId 中每個大括號內容直接「平舖」展開
     // --------------------------------------------------------------------------
 
     /**
-     * 依據 recipeId 中的 {} 格式，將 toolList 與擴展出來的 chamber 逐一組合（平鋪）。
-     * 若無大括號，直接回傳原 toolList（不帶 #chamber）。
+     * 依據 recipeId 中的 {} 格式，將 toolList 與擴展出來的 chamber 逐一組合（平鋪），直接產生 {@link ToolChamber}。
+     * 無大括號 (或沒拆到任何內容) 時每個 tool 一筆不限定 chamber 的 ToolChamber。
      *
      * 例如：
      * (1) {c} => 對應 "%%"
      * (2) {cEF} => 會展開成 ["E","F"]
      * (3) {cEF}{c134} => => ["E","F","1","3","4"] (整體平舖)
      * (4) {c(3;2)} => => ["3","2"]
-     * (5) 無大括號 => 原樣不動
+     * (5) 無大括號 => 只有 tool
      */
-    public static List<String> parsingChamber(List<String> toolList, String recipeId) {
-        if (recipeId == null || !recipeId.contains("{")) {
-            // 無大括號，直接回傳不帶 chamber 的原 toolList
-            return toolList;
-        }
-
-        // 先把所有 { ... } 內容拆出來，再把它們平舖在同一個 expansions List 中
-        List<String> expansions = extractExpansions(recipeId);
+    public static List<ToolChamber> parseToolChambers(List<String> toolList, String recipeId) {
+        List<String> expansions = recipeId == null || recipeId.indexOf('{') < 0
+                ? Collections.emptyList()
+                : recipeChambers(recipeId).flat();
         if (expansions.isEmpty()) {
-            // 雖然有大括號，但沒拆到任何內容，就回傳原工具
-            return toolList;
+            List<ToolChamber> result = new ArrayList<>(toolList.size());
+            for (String tool : toolList) {
+                result.add(ToolChamber.of(tool, ""));
+            }
+            return result;
         }
 
-        // 將 toolList x expansions 做 Cartesian product
-        List<String> result = new ArrayList<>();
+        // toolList x expansions 的 Cartesian product
+        List<ToolChamber> result = new ArrayList<>(toolList.size() * expansions.size());
         for (String tool : toolList) {
             for (String exp : expansions) {
-                result.add(tool + "#" + exp);
+                result.add(ToolChamber.of(tool, exp));
             }
         }
         return result;
     }
 
-    /**
-     * 從 recipeId 中萃取所有大括號內容，並根據其格式拆成平舖清單。
-     *
-     * @return 例如 {cEF}{c(3;2)} => ["E","F","3","2"]
-     */
-    private static List<String> extractExpansions(String recipeId) {
-        List<String> expansions = new ArrayList<>();
-        Matcher matcher = EXPANSION_PATTERN.matcher(recipeId);
-        while (matcher.find()) {
-            // 取出大括號內的字串 (可能含前導 'c')
-            String content = matcher.group(1);
-            // 移除前導的 'c'
-            if (content.startsWith("c")) {
-                content = content.substring(1).trim();
-            }
-            // 使用與 parseChamberGrouped 相同的邏輯來拆解
-            expansions.addAll(parseOneBracketContent(content));
-        }
-        return expansions;
-    }
-
     // --------------------------------------------------------------------------
     // 2) parseChamberGrouped: 返回 AND/OR 結構 (較複雜的多層結構)
     // --------------------------------------------------------------------------
@@ -108,7 +127,7 @@ public class ToolChamberUtil {
         }
 
         // 有大括號 => 萃取 bracketExpansions => AND
-        List<List<String>> bracketExpansions = extractBracketExpansionsGrouped(recipeId);
+        List<List<String>> bracketExpansions = recipeChambers(recipeId).grouped();
 
         // 每個 tool 都對應相同 bracketExpansions (AND 結構)
         Map<String, List<List<String>>> result = new HashMap<>();
@@ -126,64 +145,174 @@ public class ToolChamberUtil {
         Map<String, List<List<String>>> result = new HashMap<>();
         for (String tool : toolList) {
             // bracketExpansions=[ single bracket => empty list => no chamber ]
-            List<List<String>> expansions = new ArrayList<>();
-            expansions.add(Collections.emptyList());
-            result.put(tool, expansions);
+            result.put(tool, NO_CHAMBER);
         }
         return result;
     }
 
     /**
-     * 萃取多個大括號 => 每個大括號內的字串列表就是 OR => 彼此之間 AND。
-     * 例如 {cEF}{c134} => bracketExpansions=[ ["E","F"], ["1","3","4"] ]。
+     * 取得 recipeId 的大括號結構 (memo)；已解析過的 recipeId 直接回傳共用的結果
+     */
+    private static RecipeChambers recipeChambers(String recipeId) {
+        RecipeChambers cached = RECIPE_CHAMBERS.get(recipeId);
+        if (cached != null) {
+            RECIPE_CHAMBER_STATS.recordHit();
+            return cached;
+        }
+        RECIPE_CHAMBER_STATS.recordMiss();
+        long start = System.nanoTime();
+        RecipeChambers parsed = parseRecipeChambers(recipeId);
+        RECIPE_CHAMBER_STATS.recordLoad(System.nanoTime() - start, true);
+        if (RECIPE_CHAMBERS.size() >= MAX_RECIPE_CHAMBERS) {
+            RECIPE_CHAMBERS.clear();
+        }
+        RecipeChambers existing = RECIPE_CHAMBERS.putIfAbsent(recipeId, parsed);
+        RECIPE_CHAMBER_STATS.recordSize(RECIPE_CHAMBERS.size());
+        return existing != null ? existing : parsed;
+    }
+
+    /**
+     * 萃取多個大括號 => 每個大括號內的字串列表就是 OR => 彼此之間 AND；平舖版本為所有大括號內容依序串接。
+     * 例如 {cEF}{c134} => grouped=[ ["E","F"], ["1","3","4"] ]，flat=["E","F","1","3","4"]。
+     */
+    static RecipeChambers parseRecipeChambers(String recipeId) {
+        List<List<String>> grouped = new ArrayList<>();
+        int flatSize = 0;
+        int open = recipeId.indexOf('{');
+        while (open >= 0) {
+            int close = closingBrace(recipeId, open + 1);
+            if (close < 0) {
+                // 此 '{' 不成對，從下一個字元繼續找
+                open = recipeId.indexOf('{', open + 1);
+                continue;
+            }
+            List<String> orList = parseOneBracketContent(recipeId, open + 1, close);
+            grouped.add(orList);
+            flatSize += orList.size();
+            open = recipeId.indexOf('{', close + 1);
+        }
+        String[] flat = new String[flatSize];
+        int i = 0;
+        for (List<String> orList : grouped) {
+            for (String chamber : orList) {
+                flat[i++] = chamber;
+            }
+        }
+        return new RecipeChambers(List.copyOf(grouped), List.of(flat));
+    }
+
+    /**
+     * 從 from 開始找第一個 '}'；中間遇到換行字元視為不成對 (與原本 regex "\\{(.*?)\\}" 的 '.' 相同)
      */
-    private static List<List<String>> extractBracketExpansionsGrouped(String recipeId) {
-        List<List<String>> bracketExpansions = new ArrayList<>();
-        Matcher matcher = EXPANSION_PATTERN.matcher(recipeId);
-        while (matcher.find()) {
-            // 取出大括號內的字串 (可能含前導 'c')
-            String content = matcher.group(1);
-            if (content.startsWith("c")) {
-                content = content.substring(1).trim();
+    private static int closingBrace(String recipeId, int from) {
+        for (int i = from; i < recipeId.length(); i++) {
+            char ch = recipeId.charAt(i);
+            if (ch == '}') {
+                return i;
+            }
+            if (isLineTerminator(ch)) {
+                return -1;
             }
-            // 解析成 OR 列表
-            bracketExpansions.add(parseOneBracketContent(content));
         }
-        return bracketExpansions;
+        return -1;
+    }
+
+    /**
+     * recipeId 解析結果的命中率等統計 (key = recipeId)
+     */
+    public static CacheRegionStats recipeChamberStats() {
+        return RECIPE_CHAMBER_STATS.toRegionStats(CacheMetrics.SCOPE_REFERENCE, "recipeChamber", (long) RECIPE_CHAMBERS.size());
     }
 
     /**
-     * 單一大括號的內容，拆解出對應的 OR 清單。
+     * 單一大括號的內容 recipeId[start, end)，拆解出對應的 OR 清單。
      *
      * 規則：
+     * - 前導 'c' 去除後再去除前後空白
      * - 若 content="" => ["%%"] (對應 {c} )
      * - 若 content="(3;2)" => => ["3","2"] (用 ';' 分隔)
      * - 若 content="EF" => => ["E","F"] (逐字拆)
      * - 若 content="35" => => ["3","5"] (逐字拆)
      */
-    private static List<String> parseOneBracketContent(String content) {
+    private static List<String> parseOneBracketContent(String recipeId, int start, int end) {
+        if (start < end && recipeId.charAt(start) == 'c') {
+            start = trimStart(recipeId, start + 1, end);
+            end = trimEnd(recipeId, start, end);
+        }
         // 特殊 case: {c} => "%%"
-        if (content.isEmpty()) {
-            return Collections.singletonList("%%");
+        if (start == end) {
+            return ANY_CHAMBER;
         }
         // case: {c(...)} => 用 ';' 分隔
-        if (content.startsWith("(") && content.endsWith(")")) {
-            String inner = content.substring(1, content.length() - 1);
+        if (end - start >= 2 && recipeId.charAt(start) == '(' && recipeId.charAt(end - 1) == ')') {
             List<String> list = new ArrayList<>();
-            for (String p : inner.split(";")) {
-                String trimmed = p.trim();
-                if (!trimmed.isEmpty()) {
-                    list.add(trimmed);
+            int from = start + 1;
+            int innerEnd = end - 1;
+            while (from <= innerEnd) {
+                int semicolon = recipeId.indexOf(';', from);
+                int to = semicolon < 0 || semicolon > innerEnd ? innerEnd : semicolon;
+                int tokenStart = trimStart(recipeId, from, to);
+                int tokenEnd = trimEnd(recipeId, tokenStart, to);
+                if (tokenStart < tokenEnd) {
+                    list.add(chamberToken(recipeId, tokenStart, tokenEnd));
                 }
+                from = to + 1;
             }
-            return list;
+            return List.copyOf(list);
         }
         // case: 其他 (EF, 35, C2, etc.) => 逐字拆
-        List<String> list = new ArrayList<>();
-        for (char ch : content.toCharArray()) {
-            list.add(String.valueOf(ch));
+        String[] chambers = new String[end - start];
+        for (int i = start; i < end; i++) {
+            chambers[i - start] = charToken(recipeId.charAt(i));
         }
-        return list;
+        return List.of(chambers);
     }
 
+    /**
+     * chamber 字串；單一字元直接使用共用常數
+     */
+    private static String chamberToken(String recipeId, int start, int end) {
+        if (end - start == 1) {
+            return charToken(recipeId.charAt(start));
+        }
+        return SymbolTable.intern(recipeId.substring(start, end));
+    }
+
+    private static String charToken(char ch) {
+        return ch < CHAR_TOKENS.length ? CHAR_TOKENS[ch] : SymbolTable.intern(String.valueOf(ch));
+    }
+
+    /**
+     * 與 {@link String#trim()} 相同：略過 <= ' ' 的字元
+     */
+    private static int trimStart(String value, int start, int end) {
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String value, int start, int end) {
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(String value) {
+        return trimStart(value, 0, value.length()) == value.length();
+    }
+
+    private static boolean isLineTerminator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    /**
+     * 單一 recipeId 的大括號結構；清單皆不可變更，可在多個 thread 間共用
+     *
+     * @param grouped 每個大括號一個 OR 清單 (彼此 AND)
+     * @param flat    所有大括號內容依序平舖
+     */
+    record RecipeChambers(List<List<String>> grouped, List<String> flat) {
+    }
 }
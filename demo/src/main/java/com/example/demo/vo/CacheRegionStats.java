@@ -0,0 +1,38 @@
+package com.example.demo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStats {
+    /**
+     * reference = process-wide 的 ReferenceDataCache；batch = BatchCache (單一批次或所有批次的總計)
+     */
+    private String scope;
+    private String region;
+    private Long hits;
+    private Long misses;
+    /**
+     * 尚無任何讀取時為 null
+     */
+    private Double hitRate;
+    private Long loads;
+    private Long loadFailures;
+    private Double avgLoadMillis;
+    /**
+     * 載入耗時分布：上限 (例如 "<=5ms") → 次數
+     */
+    private Map<String, Long> loadLatencyMillis;
+    /**
+     * 目前的資料筆數 (batch 總計為 null)
+     */
+    private Long size;
+    private Long peakSize;
+}
@@ -11,7 +11,7 @@ import java.util.List;
 @AllArgsConstructor
 public class OneConditionToolRuleGroupResult {
     private String condition;
-    private List<String> toolChambers; // key = conditionName, value = List of "tool#chamber"
+    private List<ToolChamber> toolChambers; // JSON 輸出為 "tool#chamber" 字串
     private List<ResultInfo> results;    // 針對每條 rule 的判斷結果
 }
 
@@ -12,7 +12,7 @@ import java.util.Map;
 @AllArgsConstructor
 public class OneConditionToolRuleMappingInfo {
     private String condition;
-    private List<String> toolChambers;
+    private List<ToolChamber> toolChambers;
     private Map<String, List<Rule>> groupRulesMap; // <groupName, List<Rule>>
 }
 
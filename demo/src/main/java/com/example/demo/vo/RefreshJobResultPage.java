@@ -0,0 +1,24 @@
+package com.example.demo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshJobResultPage {
+    private String jobId;
+    private RefreshJobStatus.State state;
+    private Integer page;
+    private Integer size;
+    /**
+     * 目前已完成的結果數；job 執行中時會持續增加
+     */
+    private Integer totalElements;
+    private List<RuncardParsingResult> content;
+}
@@ -0,0 +1,40 @@
+package com.example.demo.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshJobStatus {
+    private String jobId;
+    private State state;
+    /**
+     * -1 代表 runcard 清單尚未載入
+     */
+    private Integer total;
+    private Integer processed;
+    /**
+     * 各階段累計耗時 (ms)
+     */
+    private Map<String, Long> phaseMillis;
+    /**
+     * 本批次 BatchCache 各 region 的命中 / 載入統計 (job 結束後才有資料)
+     */
+    private List<CacheRegionStats> cacheStats;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String errorMessage;
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.vo;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 
+@Getter
 @NoArgsConstructor
 @AllArgsConstructor
 @SuperBuilder
@@ -0,0 +1,81 @@
+package com.example.demo.vo;
+
+import com.example.demo.utils.SymbolTable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * 條件端的一組 tool / chamber (由 recipeId 展開而來)。
+ * <p>
+ * ● chamber 為空字串代表不限定 chamber (recipeId 無大括號)；"%%" 為 wildcard ({c})。
+ * ● 建立時即計算 hash，作為 map key 或比對時不必再組字串、切字串。
+ * ● 只有 JSON 輸出時才轉成 "tool#chamber" (無 chamber 時只有 tool)，與原本字串格式相同。
+ * 建立後不可變更，可在多個 thread 間共用。
+ */
+public final class ToolChamber {
+
+    private static final char SEPARATOR = '#';
+
+    private final String tool;
+    private final String chamber;
+    private final int hash;
+
+    private ToolChamber(String tool, String chamber) {
+        this.tool = tool;
+        this.chamber = chamber;
+        this.hash = 31 * tool.hashCode() + chamber.hashCode();
+    }
+
+    /**
+     * tool 與 chamber 以 SymbolTable 換成 canonical instance；chamber 為 null 視為不限定 chamber
+     */
+    public static ToolChamber of(String tool, String chamber) {
+        return new ToolChamber(SymbolTable.intern(tool), chamber == null ? "" : SymbolTable.intern(chamber));
+    }
+
+    /**
+     * 解析 "tool#chamber" 字串 (無 '#' 時整段為 tool)
+     */
+    @JsonCreator
+    public static ToolChamber parse(String value) {
+        int sep = value.indexOf(SEPARATOR);
+        return sep >= 0 ? of(value.substring(0, sep), value.substring(sep + 1)) : of(value, "");
+    }
+
+    public String getTool() {
+        return tool;
+    }
+
+    public String getChamber() {
+        return chamber;
+    }
+
+    public boolean hasChamber() {
+        return !chamber.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ToolChamber other)) {
+            return false;
+        }
+        return hash == other.hash && tool.equals(other.tool) && chamber.equals(other.chamber);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * "tool#chamber"；無 chamber 時只有 tool
+     */
+    @JsonValue
+    @Override
+    public String toString() {
+        return hasChamber() ? tool + SEPARATOR + chamber : tool;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.vo;
+
+import com.example.demo.po.RecipeGroupCheckBlue;
+
+import java.util.*;
+
+/**
+ * 單一 (recipeGroupId, toolId) 的 RecipeGroupCheckBlue 索引：chamberId → 是否 release 且 enable。
+ * 建立後不可變更，可在多個批次間共用。
+ */
+public final class ToolChamberBlueIndex {
+
+    public static final ToolChamberBlueIndex EMPTY = new ToolChamberBlueIndex(Map.of(), false);
+
+    private final Map<String, Boolean> chamberPass; // key = chamberId，例如 "#E"
+    private final boolean toolPass;                 // 任一筆 release 且 enable
+
+    private ToolChamberBlueIndex(Map<String, Boolean> chamberPass, boolean toolPass) {
+        this.chamberPass = Map.copyOf(chamberPass);
+        this.toolPass = toolPass;
+    }
+
+    /**
+     * 以已建好的 chamber 結果還原索引 (參考資料快取的磁碟 snapshot)
+     */
+    public static ToolChamberBlueIndex of(Map<String, Boolean> chamberPass, boolean toolPass) {
+        return new ToolChamberBlueIndex(chamberPass, toolPass);
+    }
+
+    /**
+     * 以同一個 tool 的多筆資料建立索引；同一個 chamber 有多筆時，任一筆通過即通過
+     */
+    public static ToolChamberBlueIndex of(Collection<RecipeGroupCheckBlue> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Boolean> chamberPass = new HashMap<>();
+        boolean toolPass = false;
+        for (RecipeGroupCheckBlue row : rows) {
+            boolean pass = "1".equals(row.getReleaseFlag()) && "1".equals(row.getEnableFlag());
+            toolPass |= pass;
+            if (row.getChamberId() != null) {
+                chamberPass.merge(row.getChamberId(), pass, Boolean::logicalOr);
+            }
+        }
+        return new ToolChamberBlueIndex(Map.copyOf(chamberPass), toolPass);
+    }
+
+    /**
+     * 將多個 tool 的資料依 toolId 分組後各自建立索引 (key = toolId)
+     */
+    public static Map<String, ToolChamberBlueIndex> indexByTool(Collection<RecipeGroupCheckBlue> rows) {
+        Map<String, List<RecipeGroupCheckBlue>> byTool = new LinkedHashMap<>();
+        for (RecipeGroupCheckBlue row : rows) {
+            if (row.getToolId() != null) {
+                byTool.computeIfAbsent(row.getToolId(), k -> new ArrayList<>()).add(row);
+            }
+        }
+        Map<String, ToolChamberBlueIndex> indexes = new LinkedHashMap<>();
+        byTool.forEach((toolId, toolRows) -> indexes.put(toolId, of(toolRows)));
+        return indexes;
+    }
+
+    /**
+     * 不限定 chamber 時：此 tool 任一筆 release 且 enable 即通過
+     */
+    public boolean isToolPass() {
+        return toolPass;
+    }
+
+    /**
+     * chamber 不含 '#' 前綴，例如 "E"
+     */
+    public boolean isChamberPass(String chamber) {
+        return chamberPass.getOrDefault("#" + chamber, false);
+    }
+
+    /**
+     * key = chamberId (含 '#' 前綴)
+     */
+    public Map<String, Boolean> getChamberPass() {
+        return chamberPass;
+    }
+
+    public int size() {
+        return chamberPass.size();
+    }
+}
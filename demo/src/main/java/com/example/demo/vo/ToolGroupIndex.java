@@ -0,0 +1,120 @@
+package com.example.demo.vo;
+
+import java.util.*;
+
+/**
+ * ToolRuleGroup 的 tool / chamber 索引：toolId → 符合的 group (以 group 在清單中的順序編號記錄)。
+ * 一個批次只建立一次，之後每個 tool#chamber 只需查 hash table，不必逐一比對每個 group 的每個 ToolInfo。
+ * <p>
+ * 比對規則與逐一比對相同：
+ * <ol>
+ *   <li>group 端 chamber 為空字串 ⇒ 只比對 toolId</li>
+ *   <li>條件端 chamber 為 "%%" ⇒ wildcard，只需 toolId 相同</li>
+ *   <li>其餘 ⇒ toolId 與 chamber 皆需相同</li>
+ * </ol>
+ * 建立後不可變更，可在多個 thread 間共用。
+ */
+public final class ToolGroupIndex {
+
+    public static final ToolGroupIndex EMPTY = new ToolGroupIndex(List.of(), Map.of(), Map.of(), Map.of());
+
+    private static final String WILDCARD_CHAMBER = "%%";
+
+    private final List<ToolRuleGroup> groups;                    // 順序編號 → group
+    private final Map<String, BitSet> toolOnly;                  // toolId → chamber 為空的 group
+    private final Map<String, BitSet> anyChamber;                // toolId → 含此 tool 的所有 group (wildcard 用)
+    private final Map<String, Map<String, BitSet>> byChamber;    // toolId → chamberId → group
+
+    private ToolGroupIndex(List<ToolRuleGroup> groups,
+                           Map<String, BitSet> toolOnly,
+                           Map<String, BitSet> anyChamber,
+                           Map<String, Map<String, BitSet>> byChamber) {
+        this.groups = groups;
+        this.toolOnly = toolOnly;
+        this.anyChamber = anyChamber;
+        this.byChamber = byChamber;
+    }
+
+    /**
+     * 只收錄有 groupName 與 rules 的 group (其餘即使比對成功也不會出現在結果中)；toolId 為 null 的 ToolInfo 忽略
+     */
+    public static ToolGroupIndex of(List<ToolRuleGroup> toolRuleGroups) {
+        if (toolRuleGroups == null || toolRuleGroups.isEmpty()) {
+            return EMPTY;
+        }
+        List<ToolRuleGroup> groups = new ArrayList<>();
+        Map<String, BitSet> toolOnly = new HashMap<>();
+        Map<String, BitSet> anyChamber = new HashMap<>();
+        Map<String, Map<String, BitSet>> byChamber = new HashMap<>();
+
+        for (ToolRuleGroup group : toolRuleGroups) {
+            if (group.getTools() == null || group.getTools().isEmpty()
+                    || group.getGroupName() == null || group.getRules() == null) {
+                continue;
+            }
+            int ordinal = groups.size();
+            groups.add(group);
+            for (ToolInfo ti : group.getTools()) {
+                String tool = ti.getToolId();
+                if (tool == null) {
+                    continue;
+                }
+                String chamber = ti.getChamberId() == null ? "" : ti.getChamberId().trim();
+                anyChamber.computeIfAbsent(tool, k -> new BitSet()).set(ordinal);
+                if (chamber.isEmpty()) {
+                    toolOnly.computeIfAbsent(tool, k -> new BitSet()).set(ordinal);
+                } else {
+                    byChamber.computeIfAbsent(tool, k -> new HashMap<>())
+                            .computeIfAbsent(chamber, k -> new BitSet()).set(ordinal);
+                }
+            }
+        }
+        return new ToolGroupIndex(List.copyOf(groups), toolOnly, anyChamber, byChamber);
+    }
+
+    /**
+     * 找出與任一 tool#chamber 相符的 group：groupName → rules。
+     * groupName 重複時與逐一比對相同，以清單中較後面的 group 為準
+     */
+    public Map<String, List<Rule>> match(List<ToolChamber> toolChambers) {
+        Map<String, List<Rule>> resultMap = new HashMap<>();
+        if (groups.isEmpty() || toolChambers == null || toolChambers.isEmpty()) {
+            return resultMap;
+        }
+
+        BitSet matched = new BitSet(groups.size());
+        for (ToolChamber tc : toolChambers) {
+            String tool = tc.getTool();
+            String chamber = tc.getChamber();
+
+            if (WILDCARD_CHAMBER.equals(chamber)) {
+                or(matched, anyChamber.get(tool));
+                continue;
+            }
+            or(matched, toolOnly.get(tool));
+            Map<String, BitSet> chambers = byChamber.get(tool);
+            if (chambers != null) {
+                or(matched, chambers.get(chamber));
+            }
+        }
+
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            ToolRuleGroup group = groups.get(i);
+            resultMap.put(group.getGroupName(), group.getRules());
+        }
+        return resultMap;
+    }
+
+    private static void or(BitSet target, BitSet bits) {
+        if (bits != null) {
+            target.or(bits);
+        }
+    }
+
+    /**
+     * 收錄的 group 數
+     */
+    public int size() {
+        return groups.size();
+    }
+}
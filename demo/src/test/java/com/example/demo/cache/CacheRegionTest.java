@@ -0,0 +1,169 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheRegionTest {
+
+    /**
+     * 同一個 key 同時 miss 只載入一次，所有呼叫端取得同一個值
+     */
+    @Test
+    void get_concurrentMiss_loadsOnce() throws Exception {
+        CacheRegion<String, String> region = new CacheRegion<>("test");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> region.get("k", k -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "V";
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("V", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * loader 內讀取同一個 region 的其他 key 不會 deadlock 或丟出 recursive update
+     */
+    @Test
+    void get_nestedLoad_otherKey() {
+        CacheRegion<String, String> region = new CacheRegion<>("test");
+
+        String value = region.get("outer", k -> "outer+" + region.get("inner", k2 -> "inner"));
+
+        assertEquals("outer+inner", value);
+        assertEquals(2, region.size());
+    }
+
+    @Test
+    void get_failureOrNull_notCached() {
+        CacheRegion<String, String> region = new CacheRegion<>("test");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> region.get("k", k -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("db down");
+        }));
+        assertNull(region.get("k", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals("V", region.get("k", k -> {
+            loads.incrementAndGet();
+            return "V";
+        }));
+
+        assertEquals(3, loads.get());
+        assertEquals("V", region.get("k", k -> "other"));
+    }
+
+    @Test
+    void memoized_loadsOnce_retriesAfterFailure() {
+        AtomicInteger loads = new AtomicInteger();
+        Memoized<String> memoized = new Memoized<>(() -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("db down");
+            }
+            return "V";
+        });
+
+        assertThrows(IllegalStateException.class, memoized::get);
+        assertFalse(memoized.isLoaded());
+        assertEquals("V", memoized.get());
+        assertEquals("V", memoized.get());
+        assertTrue(memoized.isLoaded());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void stats_countHitsMissesAndLoads() {
+        CacheRegion<String, String> region = new CacheRegion<>("test");
+        region.get("a", k -> "A");
+        region.get("a", k -> "A");
+        region.putIfAbsent("b", "B");
+        region.get("b", k -> "B");
+        assertThrows(IllegalStateException.class, () -> region.get("c", k -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        var stats = region.getStats().toRegionStats("batch", region.getName(), null);
+        assertEquals(2, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(2, stats.getLoads());
+        assertEquals(1, stats.getLoadFailures());
+        assertEquals(2, stats.getPeakSize());
+        assertEquals(2, stats.getLoadLatencyMillis().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * loader 回傳 null 時記錄 sentinel，negative TTL 內不再載入；negative TTL 為 0 時每次重新載入
+     */
+    @Test
+    void get_nullResult_cachedWithinNegativeTtl() {
+        CacheRegion<String, String> negative = new CacheRegion<>("test", () -> Duration.ofMinutes(1));
+        CacheRegion<String, String> plain = new CacheRegion<>("test");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(negative.get("k", k -> { loads.incrementAndGet(); return null; }));
+        assertNull(negative.get("k", k -> { loads.incrementAndGet(); return null; }));
+        assertTrue(negative.containsKey("k"));
+        assertEquals(1, loads.get());
+
+        plain.get("k", k -> { loads.incrementAndGet(); return null; });
+        plain.get("k", k -> { loads.incrementAndGet(); return null; });
+        assertFalse(plain.containsKey("k"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void putAbsent_replacedByLaterValue() {
+        CacheRegion<String, String> region = new CacheRegion<>("test", () -> Duration.ofMinutes(1));
+        region.putAbsent("k");
+        assertTrue(region.isKnownAbsent("k"));
+
+        region.remove("k");
+        region.putIfAbsent("k", "V");
+
+        assertFalse(region.isKnownAbsent("k"));
+        assertEquals("V", region.get("k", k -> "other"));
+    }
+
+    /**
+     * NO_EXPIRY 的 sentinel 與 region 同生同滅 (BatchCache 每個 key 每批次只查一次)
+     */
+    @Test
+    void putAbsent_noExpiry_keptForRegionLifetime() throws InterruptedException {
+        CacheRegion<String, String> region = new CacheRegion<>("test", () -> CacheRegion.NO_EXPIRY);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(region.get("k", k -> { loads.incrementAndGet(); return null; }));
+        Thread.sleep(5);
+        assertNull(region.get("k", k -> { loads.incrementAndGet(); return null; }));
+
+        assertTrue(region.isKnownAbsent("k"));
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.service.DataLoaderService;
+import com.example.demo.vo.ModuleInfo;
+import com.example.demo.vo.RuncardRawInfo;
+import com.example.demo.vo.ToolRuleGroup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpRunnerTest {
+
+    @Mock
+    private DataLoaderService dataLoaderService;
+
+    private ReferenceCacheProperties properties;
+    private ReferenceDataCache referenceDataCache;
+    private ToolGroupIndexRegistry groupIndexRegistry;
+    private CacheWarmUpRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReferenceCacheProperties();
+        newRunner();
+    }
+
+    private void newRunner() {
+        referenceDataCache = new ReferenceDataCache(dataLoaderService, properties);
+        groupIndexRegistry = new ToolGroupIndexRegistry(properties);
+        runner = new CacheWarmUpRunner(dataLoaderService, referenceDataCache, groupIndexRegistry,
+                new ReferenceCacheSnapshot(referenceDataCache, properties, new ObjectMapper()), properties);
+    }
+
+    private static ToolRuleGroup group(String name) {
+        ToolRuleGroup group = new ToolRuleGroup();
+        group.setGroupName(name);
+        return group;
+    }
+
+    /**
+     * 預設不快取 group：預熱後批次仍讀取最新的 group，版本未變動時沿用預熱時的編譯結果；
+     * 單一 module 失敗不影響其他 module
+     */
+    @Test
+    void run_preloadsEachModule() {
+        when(dataLoaderService.getToolIdToSectNameMap()).thenReturn(Map.of("JDTM16", "SECT1"));
+        when(dataLoaderService.getModules()).thenReturn(List.of(
+                new ModuleInfo("ModuleA", List.of()),
+                new ModuleInfo("ModuleB", List.of("SB1", "SB2"))));
+        when(dataLoaderService.getToolRuleGroupsAsync(List.of("ModuleA")))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("mongo down")));
+        when(dataLoaderService.getToolRuleGroupsAsync(List.of("SB1", "SB2")))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(List.of(group("G1"), group("G2"))));
+        RuncardRawInfo raw = new RuncardRawInfo();
+        raw.setIssuingEngineer("Alice/E001/Litho");
+        when(dataLoaderService.getQueryRuncardBatchAsync(anyList(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        when(dataLoaderService.getQueryRuncardBatchAsync(eq(List.of("SB1", "SB2")), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(List.of(raw))));
+        when(dataLoaderService.getIssuingEngineerInfo(List.of("E001"))).thenReturn(List.of());
+
+        runner.run(null);
+
+        assertEquals(1, groupIndexRegistry.size());
+        verify(dataLoaderService).getIssuingEngineerInfo(List.of("E001"));
+
+        List<ToolRuleGroup> groups = referenceDataCache.getToolRuleGroupsAsync(List.of("SB1", "SB2")).join();
+        verify(dataLoaderService, times(2)).getToolRuleGroupsAsync(List.of("SB1", "SB2"));
+        ToolGroupIndexRegistry.CompiledGroupIndex warmed = groupIndexRegistry.get(List.of("SB2", "SB1"), groups);
+        assertEquals(1, warmed.version());
+        assertSame(warmed, groupIndexRegistry.get(List.of("SB1", "SB2"), groups));
+    }
+
+    /**
+     * 開啟 group 快取 (tool-rule-group.ttl > 0) 時，預熱後批次讀取 ToolRuleGroup 不再呼叫 DAO
+     */
+    @Test
+    void run_groupCacheEnabled_servesGroupsWithoutDao() {
+        properties.getToolRuleGroup().setTtl(Duration.ofMinutes(1));
+        newRunner();
+        when(dataLoaderService.getToolIdToSectNameMap()).thenReturn(Map.of());
+        when(dataLoaderService.getModules()).thenReturn(List.of(new ModuleInfo("ModuleB", List.of("SB1", "SB2"))));
+        when(dataLoaderService.getToolRuleGroupsAsync(List.of("SB1")))
+                .thenReturn(CompletableFuture.completedFuture(List.of(group("G1"))));
+        when(dataLoaderService.getToolRuleGroupsAsync(List.of("SB2")))
+                .thenReturn(CompletableFuture.completedFuture(List.of(group("G2"))));
+        when(dataLoaderService.getQueryRuncardBatchAsync(anyList(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        runner.run(null);
+
+        List<ToolRuleGroup> groups = referenceDataCache.getToolRuleGroupsAsync(List.of("SB2", "SB1")).join();
+        assertEquals(List.of("G2", "G1"), groups.stream().map(ToolRuleGroup::getGroupName).toList());
+        verify(dataLoaderService, times(1)).getToolRuleGroupsAsync(List.of("SB1"));
+        verify(dataLoaderService, times(1)).getToolRuleGroupsAsync(List.of("SB2"));
+    }
+
+    @Test
+    void run_disabled_noLoads() {
+        properties.setWarmUpEnabled(false);
+
+        runner.run(null);
+
+        verifyNoInteractions(dataLoaderService);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoizedTest {
+
+    @Test
+    void get_loadsOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Memoized<String> memoized = new Memoized<>(() -> "v" + loads.incrementAndGet());
+
+        assertEquals("v1", memoized.get());
+        assertEquals("v1", memoized.get());
+        assertTrue(memoized.isLoaded());
+    }
+
+    /**
+     * 載入失敗不保留，下一次呼叫重新載入
+     */
+    @Test
+    void get_failureNotRetained() {
+        AtomicInteger loads = new AtomicInteger();
+        Memoized<String> memoized = new Memoized<>(() -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("load fails");
+            }
+            return "ok";
+        });
+
+        assertThrows(IllegalStateException.class, memoized::get);
+        assertFalse(memoized.isLoaded());
+        assertEquals("ok", memoized.get());
+        assertEquals(2, loads.get());
+    }
+}
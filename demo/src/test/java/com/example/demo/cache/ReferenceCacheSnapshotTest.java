@@ -0,0 +1,223 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.po.IssuingEngineerInfo;
+import com.example.demo.po.RecipeGroupCheckBlue;
+import com.example.demo.service.DataLoaderService;
+import com.example.demo.vo.Rule;
+import com.example.demo.vo.ToolChamberBlueIndex;
+import com.example.demo.vo.ToolInfo;
+import com.example.demo.vo.ToolRuleGroup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceCacheSnapshotTest {
+
+    @Mock
+    private DataLoaderService dataLoaderService;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ReferenceCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReferenceCacheProperties();
+        properties.setSnapshotEnabled(true);
+        properties.getToolRuleGroup().setTtl(Duration.ofMinutes(1));
+        properties.setSnapshotPath(tempDir.resolve("reference-cache.snapshot").toString());
+    }
+
+    private ReferenceCacheSnapshot snapshotOf(ReferenceDataCache cache) {
+        return new ReferenceCacheSnapshot(cache, properties, objectMapper);
+    }
+
+    /**
+     * 寫出後由另一個 (模擬重啟後的) 快取還原，讀取時不再呼叫 DAO
+     */
+    @Test
+    void writeThenRestore_servesWithoutDao() {
+        ToolRuleGroup group = new ToolRuleGroup("G1", "u", "ModuleA", "D", "S1",
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6_000),
+                List.of(new ToolInfo("D", "S1", "JDTM16", null)),
+                List.of(new Rule("RecipeGroupCheckBlue", List.of("A", "B"), Map.of("threshold", 3, "mode", "strict")),
+                        new Rule("ruleB", null, null)));
+        when(dataLoaderService.getToolRuleGroupsAsync(List.of("S1"))).thenReturn(CompletableFuture.completedFuture(List.of(group)));
+        when(dataLoaderService.getToolIdToSectNameMap()).thenReturn(Map.of("JDTM16", "SECT1"));
+        when(dataLoaderService.getIssuingEngineerInfo(List.of("E1")))
+                .thenReturn(List.of(IssuingEngineerInfo.builder().engineerId("E1").engineerName("Alice").build()));
+        when(dataLoaderService.getRecipeGroupCheckBlue("RG1", List.of("T1"))).thenReturn(List.of(
+                RecipeGroupCheckBlue.builder().toolId("T1").chamberId("#A").releaseFlag("1").enableFlag("1").build()));
+
+        ReferenceDataCache source = new ReferenceDataCache(dataLoaderService, properties);
+        source.getToolRuleGroupsAsync(List.of("S1")).join();
+        source.getToolIdToSectNameMap();
+        source.getIssuingEngineerInfos(List.of("E1"));
+        source.getRecipeGroupCheckBlueIndex("RG1", List.of("T1"));
+        assertEquals(4, snapshotOf(source).write());
+
+        clearInvocations(dataLoaderService);
+        ReferenceDataCache restored = new ReferenceDataCache(dataLoaderService, properties);
+        assertTrue(snapshotOf(restored).restore());
+
+        assertEquals(List.of(group), restored.getToolRuleGroupsAsync(List.of("S1")).join());
+        assertEquals(Map.of("JDTM16", "SECT1"), restored.getToolIdToSectNameMap());
+        assertEquals("Alice", restored.getIssuingEngineerInfos(List.of("E1")).get("E1").getEngineerName());
+        ToolChamberBlueIndex index = restored.getRecipeGroupCheckBlueIndex("RG1", List.of("T1")).get("T1");
+        assertTrue(index.isToolPass());
+        assertTrue(index.isChamberPass("A"));
+        assertFalse(index.isChamberPass("B"));
+        verifyNoInteractions(dataLoaderService);
+    }
+
+    /**
+     * 兩個 thread 同時寫出 (例如定期寫出與關機寫出重疊) 不會互相覆寫暫存檔，最後的檔案可完整還原
+     */
+    @Test
+    void write_concurrent_producesRestorableSnapshot() throws Exception {
+        List<String> empIds = IntStream.range(0, 2_000).mapToObj(i -> "E" + i).toList();
+        when(dataLoaderService.getIssuingEngineerInfo(empIds)).thenReturn(empIds.stream()
+                .map(id -> IssuingEngineerInfo.builder().engineerId(id).engineerName("Name-" + id).build())
+                .toList());
+        ReferenceDataCache source = new ReferenceDataCache(dataLoaderService, properties);
+        source.getIssuingEngineerInfos(empIds);
+        ReferenceCacheSnapshot snapshot = snapshotOf(source);
+
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                results.add(writers.submit(() -> {
+                    go.await();
+                    List<Integer> written = new ArrayList<>();
+                    for (int i = 0; i < 10; i++) {
+                        written.add(snapshot.write());
+                    }
+                    return written;
+                }));
+            }
+            go.countDown();
+            for (Future<List<Integer>> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS).stream().allMatch(n -> n == empIds.size()));
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        ReferenceDataCache restored = new ReferenceDataCache(dataLoaderService, properties);
+        assertTrue(snapshotOf(restored).restore());
+        assertEquals(empIds.size(), restored.engineerRegion().size());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of("reference-cache.snapshot"), files.map(f -> f.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    void restore_rejectsOtherFormatVersion() throws IOException {
+        writeHeader(ReferenceCacheSnapshot.FORMAT_VERSION + 1, System.currentTimeMillis());
+
+        assertFalse(snapshotOf(new ReferenceDataCache(dataLoaderService, properties)).restore());
+    }
+
+    @Test
+    void restore_rejectsSnapshotOlderThanMaxAge() throws IOException {
+        properties.setSnapshotMaxAge(Duration.ofMinutes(10));
+        writeHeader(ReferenceCacheSnapshot.FORMAT_VERSION, System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+
+        assertFalse(snapshotOf(new ReferenceDataCache(dataLoaderService, properties)).restore());
+    }
+
+    /**
+     * 檔案截斷時不還原任何資料
+     */
+    @Test
+    void restore_truncatedFile_restoresNothing() throws IOException {
+        when(dataLoaderService.getToolIdToSectNameMap()).thenReturn(Map.of("JDTM16", "SECT1"));
+        ReferenceDataCache source = new ReferenceDataCache(dataLoaderService, properties);
+        source.getToolIdToSectNameMap();
+        snapshotOf(source).write();
+        Path path = Path.of(properties.getSnapshotPath());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        ReferenceDataCache restored = new ReferenceDataCache(dataLoaderService, properties);
+        assertFalse(snapshotOf(restored).restore());
+        assertEquals(0, restored.toolSectRegion().size());
+    }
+
+    /**
+     * 含 null 值的 entry (Map.copyOf 丟出 NPE) 視為損毀，不還原且不丟出例外
+     */
+    @Test
+    void restore_nullValue_restoresNothing() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(Path.of(properties.getSnapshotPath())))) {
+            out.writeInt(ReferenceCacheSnapshot.MAGIC);
+            out.writeInt(ReferenceCacheSnapshot.FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(1);
+            out.writeByte(ReferenceCacheSnapshot.REGION_TOOL_SECT);
+            byte[] key = "ALL".getBytes(StandardCharsets.UTF_8);
+            out.writeInt(key.length);
+            out.write(key);
+            // toolSect 一筆：key "JDTM16"、value null
+            byte[] toolId = "JDTM16".getBytes(StandardCharsets.UTF_8);
+            out.writeInt(4 + 4 + toolId.length + 4);
+            out.writeInt(1);
+            out.writeInt(toolId.length);
+            out.write(toolId);
+            out.writeInt(-1);
+        }
+
+        ReferenceDataCache restored = new ReferenceDataCache(dataLoaderService, properties);
+        assertFalse(snapshotOf(restored).restore());
+        assertEquals(0, restored.toolSectRegion().size());
+    }
+
+    @Test
+    void restore_disabled_returnsFalse() {
+        properties.setSnapshotEnabled(false);
+
+        assertFalse(snapshotOf(new ReferenceDataCache(dataLoaderService, properties)).restore());
+    }
+
+    private void writeHeader(int version, long createdAtMillis) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(Path.of(properties.getSnapshotPath())))) {
+            out.writeInt(ReferenceCacheSnapshot.MAGIC);
+            out.writeInt(version);
+            out.writeLong(createdAtMillis);
+            out.writeInt(0);
+        }
+    }
+}
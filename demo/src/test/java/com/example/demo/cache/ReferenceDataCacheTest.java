@@ -0,0 +1,205 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.po.IssuingEngineerInfo;
+import com.example.demo.po.RecipeGroupCheckBlue;
+import com.example.demo.service.DataLoaderService;
+import com.example.demo.vo.CacheRegionStats;
+import com.example.demo.vo.ToolChamberBlueIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataCacheTest {
+
+    @Mock
+    private DataLoaderService dataLoaderService;
+
+    private ReferenceCacheProperties properties;
+    private ReferenceDataCache referenceDataCache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReferenceCacheProperties();
+        referenceDataCache = new ReferenceDataCache(dataLoaderService, properties);
+    }
+
+    /**
+     * 第二次 (模擬下一個批次) 讀取參考資料時不再呼叫 DAO
+     */
+    @Test
+    void secondRead_servedFromCache() {
+        when(dataLoaderService.getToolIdToSectNameMap()).thenReturn(Map.of("JDTM16", "SECT1"));
+        when(dataLoaderService.getIssuingEngineerInfo(anyList())).thenReturn(List.of(engineer("E1"), engineer("E2")));
+        when(dataLoaderService.getRecipeGroupCheckBlue(anyString(), anyList())).thenReturn(List.of(
+                new RecipeGroupCheckBlue("T1", "#A", "1", "1"),
+                new RecipeGroupCheckBlue("T2", "#A", "1", "0")));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("SECT1", referenceDataCache.getToolIdToSectNameMap().get("JDTM16"));
+            assertEquals(2, referenceDataCache.getIssuingEngineerInfos(List.of("E2", "E1")).size());
+            assertEquals(2, referenceDataCache.getRecipeGroupCheckBlueIndex("RG1", List.of("T2", "T1")).size());
+        }
+        // 以 (recipeGroupId, toolId) 為 key，tool 組合不同仍命中
+        assertTrue(referenceDataCache.getRecipeGroupCheckBlueIndex("RG1", List.of("T1")).get("T1").isChamberPass("A"));
+
+        verify(dataLoaderService, times(1)).getToolIdToSectNameMap();
+        verify(dataLoaderService, times(1)).getIssuingEngineerInfo(anyList());
+        verify(dataLoaderService, times(1)).getRecipeGroupCheckBlue(anyString(), anyList());
+    }
+
+    private static IssuingEngineerInfo engineer(String empId) {
+        return IssuingEngineerInfo.builder().engineerId(empId).build();
+    }
+
+    /**
+     * 以 empId 為 key：只查詢尚未快取的 empId，且多個 empId 合併為一次查詢
+     */
+    @Test
+    void getIssuingEngineerInfos_fetchesOnlyMissingInOneCall() {
+        when(dataLoaderService.getIssuingEngineerInfo(List.of("E1"))).thenReturn(List.of(engineer("E1")));
+        when(dataLoaderService.getIssuingEngineerInfo(List.of("E2", "E3"))).thenReturn(List.of(engineer("E2")));
+
+        referenceDataCache.getIssuingEngineerInfos(List.of("E1"));
+        Map<String, IssuingEngineerInfo> infos = referenceDataCache.getIssuingEngineerInfos(List.of("E1", "E2", "E3"));
+
+        assertEquals(List.of("E1", "E2"), List.copyOf(infos.keySet()));
+        verify(dataLoaderService).getIssuingEngineerInfo(List.of("E1"));
+        verify(dataLoaderService).getIssuingEngineerInfo(List.of("E2", "E3"));
+        verifyNoMoreInteractions(dataLoaderService);
+    }
+
+    /**
+     * 只查詢尚未快取的 tool；查無資料的 tool 以空索引快取
+     */
+    @Test
+    void getRecipeGroupCheckBlueIndex_fetchesOnlyMissingTools() {
+        when(dataLoaderService.getRecipeGroupCheckBlue("RG1", List.of("T1", "T2")))
+                .thenReturn(List.of(new RecipeGroupCheckBlue("T1", "#A", "1", "1")));
+        when(dataLoaderService.getRecipeGroupCheckBlue("RG1", List.of("T3")))
+                .thenReturn(List.of(new RecipeGroupCheckBlue("T3", "#B", "0", "1")));
+
+        referenceDataCache.getRecipeGroupCheckBlueIndex("RG1", List.of("T1", "T2"));
+        Map<String, ToolChamberBlueIndex> indexes = referenceDataCache.getRecipeGroupCheckBlueIndex("RG1", List.of("T2", "T3", "T1"));
+
+        assertSame(ToolChamberBlueIndex.EMPTY, indexes.get("T2"));
+        assertFalse(indexes.get("T3").isChamberPass("B"));
+        assertTrue(indexes.get("T1").isToolPass());
+        verify(dataLoaderService).getRecipeGroupCheckBlue("RG1", List.of("T1", "T2"));
+        verify(dataLoaderService).getRecipeGroupCheckBlue("RG1", List.of("T3"));
+        verifyNoMoreInteractions(dataLoaderService);
+    }
+
+    @Test
+    void disabled_alwaysLoads() {
+        properties.setEnabled(false);
+        when(dataLoaderService.getToolIdToSectNameMap()).thenReturn(Map.of());
+
+        referenceDataCache.getToolIdToSectNameMap();
+        referenceDataCache.getToolIdToSectNameMap();
+
+        verify(dataLoaderService, times(2)).getToolIdToSectNameMap();
+    }
+
+    /**
+     * reloadAll 以 DAO 重新載入既有 key；已不存在的 engineer 改記為查無資料
+     */
+    @Test
+    void reloadAll_replacesCachedEntries() {
+        when(dataLoaderService.getIssuingEngineerInfo(List.of("E1", "E2")))
+                .thenReturn(List.of(engineer("E1"), engineer("E2")))
+                .thenReturn(List.of(engineer("E1")));
+        when(dataLoaderService.getRecipeGroupCheckBlue("RG1", List.of("T1")))
+                .thenReturn(List.of(RecipeGroupCheckBlue.builder().toolId("T1").chamberId("#A").releaseFlag("1").enableFlag("0").build()))
+                .thenReturn(List.of(RecipeGroupCheckBlue.builder().toolId("T1").chamberId("#A").releaseFlag("1").enableFlag("1").build()));
+        referenceDataCache.getIssuingEngineerInfos(List.of("E1", "E2"));
+        assertFalse(referenceDataCache.getRecipeGroupCheckBlueIndex("RG1", List.of("T1")).get("T1").isToolPass());
+
+        referenceDataCache.reloadAll();
+
+        assertEquals(Map.of("E1", engineer("E1")), referenceDataCache.getIssuingEngineerInfos(List.of("E1")));
+        assertTrue(referenceDataCache.getRecipeGroupCheckBlueIndex("RG1", List.of("T1")).get("T1").isToolPass());
+        assertTrue(referenceDataCache.engineerRegion().isKnownAbsent("E2"));
+        verify(dataLoaderService, never()).getToolIdToSectNameMap();
+    }
+
+    /**
+     * 查無資料的 blue tool 與沒有 group 的 section 以 sentinel 記錄：negative-ttl 內不再查詢，
+     * 也不會以完整 TTL 保留 (不在 asMap 中，不寫入 snapshot、不被 reloadAll 延長)
+     */
+    @Test
+    void emptyBlueAndGroups_cachedAsAbsent() {
+        properties.getToolRuleGroup().setTtl(Duration.ofMinutes(1));
+        referenceDataCache = new ReferenceDataCache(dataLoaderService, properties);
+        when(dataLoaderService.getRecipeGroupCheckBlue("RG1", List.of("T1"))).thenReturn(List.of());
+        when(dataLoaderService.getToolRuleGroupsAsync(List.of("S1"))).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        for (int i = 0; i < 2; i++) {
+            assertSame(ToolChamberBlueIndex.EMPTY, referenceDataCache.getRecipeGroupCheckBlueIndex("RG1", List.of("T1")).get("T1"));
+            assertEquals(List.of(), referenceDataCache.getToolRuleGroupsAsync(List.of("S1")).join());
+        }
+
+        assertTrue(referenceDataCache.blueRegion().isKnownAbsent("RG1#T1"));
+        assertTrue(referenceDataCache.toolRuleGroupRegion().isKnownAbsent("S1"));
+        assertTrue(referenceDataCache.blueRegion().asMap().isEmpty());
+        assertTrue(referenceDataCache.toolRuleGroupRegion().asMap().isEmpty());
+        verify(dataLoaderService, times(1)).getRecipeGroupCheckBlue("RG1", List.of("T1"));
+        verify(dataLoaderService, times(1)).getToolRuleGroupsAsync(List.of("S1"));
+    }
+
+    /**
+     * 批次結束後的 BatchCache 統計累加到 process-wide 總計，與 reference region 一起回報
+     */
+    @Test
+    void cacheMetrics_combinesReferenceAndBatchTotals() {
+        when(dataLoaderService.getToolIdToSectNameMap()).thenReturn(Map.of("JDTM16", "SECT1"));
+        referenceDataCache.getToolIdToSectNameMap();
+        referenceDataCache.getToolIdToSectNameMap();
+        CacheMetrics metrics = new CacheMetrics(referenceDataCache);
+        CacheStats batch = new CacheStats();
+        batch.recordHit();
+        batch.recordMiss();
+        metrics.recordBatch(Map.of("forwardProcess", batch));
+        metrics.recordBatch(Map.of("forwardProcess", batch));
+
+        List<CacheRegionStats> snapshot = metrics.snapshot();
+
+        CacheRegionStats toolSect = snapshot.stream().filter(s -> "toolSect".equals(s.getRegion())).findFirst().orElseThrow();
+        assertEquals(CacheMetrics.SCOPE_REFERENCE, toolSect.getScope());
+        assertEquals(1, toolSect.getHits());
+        assertEquals(1, toolSect.getLoads());
+        assertEquals(1, toolSect.getSize());
+        CacheRegionStats forwardProcess = snapshot.get(snapshot.size() - 1);
+        assertEquals(CacheMetrics.SCOPE_BATCH, forwardProcess.getScope());
+        assertEquals(2, forwardProcess.getHits());
+        assertEquals(0.5, forwardProcess.getHitRate());
+        assertEquals(2, metrics.getBatchCount());
+    }
+
+    /**
+     * 查無資料的 empId 在 negative TTL 內不再查詢
+     */
+    @Test
+    void getIssuingEngineerInfos_absentEngineerQueriedOnce() {
+        when(dataLoaderService.getIssuingEngineerInfo(List.of("E1", "E9"))).thenReturn(List.of(engineer("E1")));
+
+        referenceDataCache.getIssuingEngineerInfos(List.of("E1", "E9"));
+        Map<String, IssuingEngineerInfo> second = referenceDataCache.getIssuingEngineerInfos(List.of("E1", "E9"));
+
+        assertEquals(Map.of("E1", engineer("E1")), second);
+        verify(dataLoaderService, times(1)).getIssuingEngineerInfo(anyList());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.vo.Rule;
+import com.example.demo.vo.ToolChamber;
+import com.example.demo.vo.ToolInfo;
+import com.example.demo.vo.ToolRuleGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolGroupIndexRegistryTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private ToolGroupIndexRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ToolGroupIndexRegistry(new ReferenceCacheProperties());
+    }
+
+    private static ToolRuleGroup group(String name, LocalDateTime updateDt, String ruleType, String toolId) {
+        Rule rule = new Rule();
+        rule.setRuleType(ruleType);
+        return new ToolRuleGroup(name, "u", "M", "D", "S1", updateDt,
+                List.of(new ToolInfo("D", "S", toolId, "")), List.of(rule));
+    }
+
+    /**
+     * 版本相同 (即使是重新載入的新 instance) 時共用同一份編譯結果，section 順序不影響
+     */
+    @Test
+    void get_sameVersion_reusesCompiledIndex() {
+        var first = registry.get(List.of("S1", "S2"), List.of(group("G1", T0, "ruleA", "T1")));
+        var second = registry.get(List.of("S2", "S1"), List.of(group("G1", T0, "ruleA", "T1")));
+
+        assertSame(first, second);
+        assertEquals(Set.of("G1"), second.index().match(List.of(ToolChamber.parse("T1#A"))).keySet());
+        assertEquals(1, registry.size());
+    }
+
+    /**
+     * 任一 group 的 updateDt 變動時重新編譯並替換
+     */
+    @Test
+    void get_updateDtChanged_swapsVersion() {
+        var first = registry.get(List.of("S1"), List.of(group("G1", T0, "ruleA", "T1")));
+        var second = registry.get(List.of("S1"), List.of(group("G1", T0.plusMinutes(1), "ruleA", "T2")));
+
+        assertNotSame(first, second);
+        assertTrue(second.version() > first.version());
+        assertEquals(Set.of("G1"), second.index().match(List.of(ToolChamber.parse("T2"))).keySet());
+        assertTrue(first.index().match(List.of(ToolChamber.parse("T2"))).isEmpty(), "舊版本不受影響");
+        assertSame(second, registry.get(List.of("S1"), List.of(group("G1", T0.plusMinutes(1), "ruleA", "T2"))));
+    }
+
+    /**
+     * 較早載入的 group (序號較小) 只給當次使用，不覆蓋較晚載入的版本
+     */
+    @Test
+    void get_earlierLoad_doesNotReplaceLaterLoad() {
+        long earlier = registry.nextLoadSequence();
+        long later = registry.nextLoadSequence();
+        var current = registry.get(List.of("S1"), List.of(group("G1", T0, "ruleA", "T2")), later);
+        var stale = registry.get(List.of("S1"), List.of(group("G1", T0.minusHours(1), "ruleA", "T1")), earlier);
+
+        assertEquals(Set.of("G1"), stale.index().match(List.of(ToolChamber.parse("T1"))).keySet());
+        assertSame(current, registry.get(List.of("S1"), List.of(group("G1", T0, "ruleA", "T2"))));
+    }
+
+    /**
+     * 較晚載入的 group 即使最大 updateDt 較早 (例如較新的 group 被刪除) 仍替換目前版本
+     */
+    @Test
+    void get_laterLoadWithOlderUpdateDt_replaces() {
+        registry.get(List.of("S1"), List.of(group("G1", T0, "ruleA", "T1"), group("G2", T0.plusHours(1), "ruleA", "T2")));
+        var afterDelete = registry.get(List.of("S1"), List.of(group("G1", T0, "ruleA", "T1")));
+
+        assertSame(afterDelete, registry.get(List.of("S1"), List.of(group("G1", T0, "ruleA", "T1"))));
+        assertTrue(afterDelete.index().match(List.of(ToolChamber.parse("T2"))).isEmpty());
+    }
+
+    /**
+     * section 組合數量超過 group-index-max-size 時整個清空
+     */
+    @Test
+    void get_overMaxSize_clears() {
+        ReferenceCacheProperties properties = new ReferenceCacheProperties();
+        properties.setGroupIndexMaxSize(2);
+        ToolGroupIndexRegistry small = new ToolGroupIndexRegistry(properties);
+
+        small.get(List.of("S1"), List.of(group("G1", T0, "ruleA", "T1")));
+        small.get(List.of("S2"), List.of(group("G2", T0, "ruleA", "T2")));
+        assertEquals(2, small.size());
+        small.get(List.of("S3"), List.of(group("G3", T0, "ruleA", "T3")));
+
+        assertEquals(0, small.size());
+    }
+}
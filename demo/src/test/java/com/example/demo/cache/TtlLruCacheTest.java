@@ -0,0 +1,114 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void get_loadsOnceWithinTtl_reloadsAfterExpiry() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test", Duration.ofSeconds(10), 10, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", k -> "v" + loads.incrementAndGet()));
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertEquals("v1", cache.get("k", k -> "v" + loads.incrementAndGet()));
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals("v2", cache.get("k", k -> "v" + loads.incrementAndGet()));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * 超過容量時淘汰最久未使用的 key
+     */
+    @Test
+    void put_overMaxSize_evictsLeastRecentlyUsed() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test", Duration.ofMinutes(1), 2, now::get);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.getIfPresent("a");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("C", cache.getIfPresent("c"));
+    }
+
+    @Test
+    void get_nullValue_notCached() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test", Duration.ofMinutes(1), 10, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("k", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        cache.get("k", k -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * negative TTL 內確認查無資料的 key 不再呼叫 loader，只算一次命中
+     */
+    @Test
+    void get_knownAbsent_skipsLoader() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test", Duration.ofMinutes(10), Duration.ofSeconds(30), 10, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("k", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("k", k -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getLoads());
+
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertEquals("v2", cache.get("k", k -> "v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void stats_expiredEntryCountsAsMiss() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test", Duration.ofSeconds(10), 10, now::get);
+        cache.get("k", k -> "v");
+        cache.get("k", k -> "v");
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        cache.get("k", k -> "v");
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(2, stats.getLoads());
+    }
+
+    @Test
+    void putAbsent_expiresAfterNegativeTtl() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>("test", Duration.ofMinutes(10), Duration.ofSeconds(30), 10, now::get);
+        cache.putAbsent("k");
+
+        assertTrue(cache.isKnownAbsent("k"));
+        assertNull(cache.getIfPresent("k"));
+        assertTrue(cache.asMap().isEmpty());
+
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertFalse(cache.isKnownAbsent("k"));
+    }
+}
@@ -82,8 +82,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM17", "ANY2", "1", "1"),
                 new RecipeGroupCheckBlue("JDTM20", "ANY3", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-001", List.of("JDTM16", "JDTM17", "JDTM20")))
-                .thenReturn(checkBlueList);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-001", List.of("JDTM16", "JDTM17", "JDTM20")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(checkBlueList));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair(TEST_COND, "JDTM16,JDTM17,JDTM20", "xxx.xx-xxxx.xxxx-{c}"),
@@ -115,8 +115,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM16", "#E", "1", "1"),
                 new RecipeGroupCheckBlue("JDTM17", "#F", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-002", List.of("JDTM16", "JDTM17")))
-                .thenReturn(checkBlueList);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-002", List.of("JDTM16", "JDTM17")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(checkBlueList));
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair(TEST_COND, "JDTM16,JDTM17", "xxx.xx-xxxx.xxxx-{cEF}"),
                 ruleWithLotType);
@@ -150,8 +150,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM17", "#F", "1", "1"),
                 new RecipeGroupCheckBlue("JDTM17", "#3", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-003", List.of("JDTM16", "JDTM17")))
-                .thenReturn(checkBlueList);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-003", List.of("JDTM16", "JDTM17")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(checkBlueList));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair(TEST_COND, "JDTM16,JDTM17", "xxx.xx-xxxx.xxxx-{cEF}{c134}"),
@@ -182,8 +182,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM16", "#3", "1", "1"),
                 new RecipeGroupCheckBlue("JDTM20", "#2", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-004", List.of("JDTM16", "JDTM20")))
-                .thenReturn(checkBlueList);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-004", List.of("JDTM16", "JDTM20")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(checkBlueList));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair(TEST_COND, "JDTM16,JDTM20", "xxx.xx-xxxx.xxxx-{c(3;2)}"),
@@ -213,8 +213,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM16", "XYZ", "1", "1"),
                 new RecipeGroupCheckBlue("JDTM17", "ABC", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-005", List.of("JDTM16", "JDTM17")))
-                .thenReturn(checkBlueList);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-005", List.of("JDTM16", "JDTM17")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(checkBlueList));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair(TEST_COND, "JDTM16,JDTM17", "xxx.xx-xxxx.xxxx"),
@@ -242,8 +242,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM16", "#E", "1", "1")
                 // JDTM17 => missing => fail
         );
-        when(cache.getRecipeGroupCheckBlue("RG-002", List.of("JDTM16", "JDTM17")))
-                .thenReturn(checkBlueList);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-002", List.of("JDTM16", "JDTM17")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(checkBlueList));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair(TEST_COND, "JDTM16,JDTM17", "xxx.xx-xxxx.xxxx-{cEF}"),
@@ -304,9 +304,9 @@ class RuleRecipeGroupCheckBlueTest {
         when(cache.getRecipeGroupAndTool(anyString()))
                 .thenReturn(List.of(info));
 
-        when(cache.getRecipeGroupCheckBlue("RG-999",
+        when(cache.getRecipeGroupCheckBlueIndex("RG-999",
                 List.of("JDTM16", "JDTM17")))
-                .thenReturn(Collections.emptyList());
+                .thenReturn(ToolChamberBlueIndex.indexByTool(Collections.emptyList()));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair(TEST_COND, "JDTM16,JDTM17", "xxx.xx-xxxx.xxxx-{c}"),
@@ -334,8 +334,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM16", "ANY", "1", "1"),
                 new RecipeGroupCheckBlue("JDTM17", "ANY", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-A", List.of("JDTM16", "JDTM17")))
-                .thenReturn(blues);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-A", List.of("JDTM16", "JDTM17")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(blues));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair("01_M01", "JDTM16,JDTM17", "recipe-{c}"),
@@ -357,8 +357,8 @@ class RuleRecipeGroupCheckBlueTest {
                 new RecipeGroupCheckBlue("JDTM20", "#1", "1", "1"),
                 new RecipeGroupCheckBlue("JDTM21", "#1", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-B", List.of("JDTM20", "JDTM21")))
-                .thenReturn(blues);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-B", List.of("JDTM20", "JDTM21")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(blues));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair("01_M02", "JDTM20,JDTM21", "recipe-{c1}"),
@@ -382,8 +382,8 @@ class RuleRecipeGroupCheckBlueTest {
         List<RecipeGroupCheckBlue> blues = List.of(
                 new RecipeGroupCheckBlue("JDTM30", "ANY", "1", "1")
         );
-        when(cache.getRecipeGroupCheckBlue("RG-C", List.of("JDTM30", "JDTM31")))
-                .thenReturn(blues);
+        when(cache.getRecipeGroupCheckBlueIndex("RG-C", List.of("JDTM30", "JDTM31")))
+                .thenReturn(ToolChamberBlueIndex.indexByTool(blues));
 
         ResultInfo result = ruleRecipeGroupCheckBlue.check(
                 stubPair("01_M03", "JDTM30,JDTM31", "recipe-{c}"),
@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.CacheMetrics;
+import com.example.demo.cache.ReferenceDataCache;
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.po.ForwardProcess;
+import com.example.demo.rule.RuleDao;
+import com.example.demo.rule.RuncardInfoDao;
+import com.example.demo.vo.MultipleRecipeData;
+import com.example.demo.vo.OneConditionRecipeAndToolInfo;
+import com.example.demo.vo.RecipeGroupAndTool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchCacheTest {
+
+    @Mock
+    private RuleDao ruleDao;
+
+    @Mock
+    private RuncardInfoDao runcardInfoDao;
+
+    @Mock
+    private ReferenceDataCache referenceDataCache;
+
+    @Mock
+    private CacheMetrics cacheMetrics;
+
+    @InjectMocks
+    private DataLoaderService dataLoaderService;
+
+    private BatchCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BatchCache(dataLoaderService, referenceDataCache, cacheMetrics, new ReferenceCacheProperties());
+    }
+
+    /**
+     * mapping 用的 recipe / tool 對照與 RecipeGroupCheckBlue 用的 RecipeGroupAndTool 共用同一次 DAO 查詢
+     */
+    @Test
+    void getRecipeAndToolInfo_sharesRecipeGroupAndToolLoad() {
+        RecipeGroupAndTool rgt = RecipeGroupAndTool.builder()
+                .condition("01").recipeGroupId("RG1").toolIdList("JDTM16,JDTM17").recipeId("R1").build();
+        MultipleRecipeData recipe = MultipleRecipeData.builder().condition("02").name("RC_RECIPE_ID_01").value("R2").build();
+        MultipleRecipeData tool = MultipleRecipeData.builder().condition("02").name("RC_RECIPE_ID_01_EQP_OA").value("JDTM20").build();
+        when(runcardInfoDao.getRecipeGroupsAndToolInfos()).thenReturn(Optional.of(List.of(rgt)));
+        when(runcardInfoDao.multipleRecipeData()).thenReturn(Optional.of(List.of(recipe, tool)));
+
+        List<OneConditionRecipeAndToolInfo> infos = cache.getRecipeAndToolInfo("RC-001");
+        List<RecipeGroupAndTool> groups = cache.getRecipeGroupAndTool("RC-001");
+        cache.getRecipeAndToolInfo("RC-001");
+
+        assertEquals(List.of("01", "02_M01"), infos.stream().map(OneConditionRecipeAndToolInfo::getCondition).toList());
+        assertEquals("JDTM20", infos.get(1).getToolIdList());
+        assertEquals(List.of(rgt), groups);
+        verify(runcardInfoDao, times(1)).getRecipeGroupsAndToolInfos();
+        verify(runcardInfoDao, times(1)).multipleRecipeData();
+    }
+
+    /**
+     * 多筆預先載入的結果中沒有的 runcard 記為查無資料：批次內不再查詢，讀取時給與單筆查詢相同的預設值
+     */
+    @Test
+    void prefetch_missingRuncard_cachedAsAbsentAndReadsDefault() {
+        DataLoaderService loader = mock(DataLoaderService.class);
+        BatchCache batchCache = new BatchCache(loader, referenceDataCache, cacheMetrics, new ReferenceCacheProperties());
+        List<String> rcIds = List.of("RC-001", "RC-002");
+        ForwardProcess fp = new ForwardProcess();
+        when(loader.getRecipeGroupAndToolByRuncardIdsAsync(rcIds)).thenReturn(CompletableFuture.completedFuture(Map.of()));
+        when(loader.getMultipleRecipeDataByRuncardIdsAsync(rcIds)).thenReturn(CompletableFuture.completedFuture(Map.of()));
+        when(loader.getForwardProcessByRuncardIdsAsync(rcIds)).thenReturn(CompletableFuture.completedFuture(Map.of("RC-001", List.of(fp))));
+        when(loader.getInhibitionCheckStatusByRuncardIdsAsync(rcIds)).thenReturn(CompletableFuture.completedFuture(Map.of()));
+        when(loader.getWaferConditionByRuncardIdsAsync(rcIds)).thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        batchCache.prefetch(rcIds);
+
+        assertEquals(List.of(fp), batchCache.getForwardProcess("RC-001"));
+        assertEquals(List.of(), batchCache.getForwardProcess("RC-002"));
+        assertEquals(List.of(), batchCache.getInhibitionCheckStatus("RC-002"));
+        assertNotNull(batchCache.getWaferCondition("RC-002"));
+        assertEquals(List.of(), batchCache.getRecipeGroupAndTool("RC-002"));
+        assertEquals(List.of(), batchCache.getMultipleRecipeData("RC-002"));
+        verify(loader, never()).getForwardProcess(anyString());
+        verify(loader, never()).getInhibitionCheckStatus(anyString());
+        verify(loader, never()).getWaferCondition(anyString());
+        verify(loader, never()).getRecipeGroupAndTool(anyString());
+        verify(loader, never()).getMultipleRecipeData(anyString());
+    }
+}
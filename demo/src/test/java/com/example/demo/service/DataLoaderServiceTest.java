@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.po.ForwardProcess;
+import com.example.demo.po.WaferCondition;
 import com.example.demo.rule.RuleDao;
 import com.example.demo.rule.RuncardInfoDao;
 import com.example.demo.vo.MultipleRecipeData;
@@ -289,4 +291,33 @@ class DataLoaderServiceTest {
         assertEquals("R-OK", res.get(0).getRecipeId());
     }
 
+    /**
+     * case 7: 多筆查詢 DAO 回傳 empty => 查無資料的 runcard 不在結果中 (預設值由 BatchCache 給)
+     */
+    @Test
+    void testGetWaferConditionByRuncardIds_emptyOptional() {
+        when(ruleDao.getWaferConditionByRuncardIds(List.of("RC-001")))
+                .thenReturn(Optional.empty());
+
+        Map<String, WaferCondition> result = dataLoaderService.getWaferConditionByRuncardIds(List.of("RC-001"));
+
+        assertTrue(result.isEmpty());
+    }
+
+    /**
+     * case 8: 多筆查詢只回傳 DAO 有資料的 runcard
+     */
+    @Test
+    void testGetForwardProcessByRuncardIds_omitsMissing() {
+        ForwardProcess fp = new ForwardProcess();
+        fp.setToolId("JDTM16");
+        when(ruleDao.getForwardProcessByRuncardIds(List.of("RC-001", "RC-002")))
+                .thenReturn(Optional.of(Map.of("RC-001", new ArrayList<>(List.of(fp)))));
+
+        Map<String, List<ForwardProcess>> result = dataLoaderService.getForwardProcessByRuncardIds(List.of("RC-001", "RC-002"));
+
+        assertEquals(List.of("RC-001"), List.copyOf(result.keySet()));
+        assertEquals("JDTM16", result.get("RC-001").get(0).getToolId());
+    }
+
 }
@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RuncardFlowProperties;
+import com.example.demo.vo.RefreshJobResultPage;
+import com.example.demo.vo.RefreshJobStatus;
+import com.example.demo.vo.RuncardParsingRequest;
+import com.example.demo.vo.RuncardParsingResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshJobServiceTest {
+
+    @Mock
+    private RuncardFlowService runcardFlowService;
+
+    private ExecutorService executor;
+    private RefreshJobService refreshJobService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        refreshJobService = new RefreshJobService(runcardFlowService, new RuncardFlowProperties(), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private RefreshJobStatus awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            RefreshJobStatus status = refreshJobService.getStatus(jobId).orElseThrow();
+            if (status.getState() == RefreshJobStatus.State.SUCCEEDED || status.getState() == RefreshJobStatus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job not finished");
+    }
+
+    @Test
+    void submit_completesWithProgressAndPagedResults() throws InterruptedException {
+        doAnswer(invocation -> {
+            Consumer<RuncardParsingResult> sink = invocation.getArgument(1);
+            BatchProgress progress = invocation.getArgument(2);
+            progress.setTotal(5);
+            for (int i = 0; i < 5; i++) {
+                sink.accept(RuncardParsingResult.builder().runcardId("RC-" + i).build());
+                progress.incrementProcessed();
+            }
+            progress.addPhaseNanos(BatchProgress.PHASE_VALIDATION, 2_000_000);
+            return null;
+        }).when(runcardFlowService).streamRuncardBatch(any(), any(), any());
+
+        RefreshJobStatus submitted = refreshJobService.submit(new RuncardParsingRequest(List.of("ModuleA"), null, null));
+        assertNotNull(submitted.getJobId());
+
+        RefreshJobStatus status = awaitFinished(submitted.getJobId());
+        assertEquals(RefreshJobStatus.State.SUCCEEDED, status.getState());
+        assertEquals(5, status.getTotal());
+        assertEquals(5, status.getProcessed());
+        assertEquals(2L, status.getPhaseMillis().get(BatchProgress.PHASE_VALIDATION));
+        assertNotNull(status.getFinishedAt());
+
+        RefreshJobResultPage page = refreshJobService.getResults(submitted.getJobId(), 1, 2).orElseThrow();
+        assertEquals(5, page.getTotalElements());
+        assertEquals(List.of("RC-2", "RC-3"), page.getContent().stream().map(RuncardParsingResult::getRuncardId).toList());
+
+        RefreshJobResultPage beyond = refreshJobService.getResults(submitted.getJobId(), 9, 2).orElseThrow();
+        assertTrue(beyond.getContent().isEmpty());
+    }
+
+    @Test
+    void submit_failure_recordsError() throws InterruptedException {
+        doThrow(new IllegalStateException("db down")).when(runcardFlowService).streamRuncardBatch(any(), any(), any());
+
+        RefreshJobStatus submitted = refreshJobService.submit(new RuncardParsingRequest(List.of("ModuleA"), null, null));
+        RefreshJobStatus status = awaitFinished(submitted.getJobId());
+
+        assertEquals(RefreshJobStatus.State.FAILED, status.getState());
+        assertEquals("db down", status.getErrorMessage());
+    }
+
+    /**
+     * executor 與等待佇列皆滿時拒絕新 job，且不留下 job 紀錄
+     */
+    @Test
+    void submit_queueFull_rejected() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return null;
+        }).when(runcardFlowService).streamRuncardBatch(any(), any(), any());
+        RuncardParsingRequest request = new RuncardParsingRequest(List.of("ModuleA"), null, null);
+
+        RefreshJobStatus running = refreshJobService.submit(request);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        RefreshJobStatus queued = refreshJobService.submit(request);
+        assertThrows(RejectedExecutionException.class, () -> refreshJobService.submit(request));
+        release.countDown();
+
+        assertEquals(RefreshJobStatus.State.SUCCEEDED, awaitFinished(running.getJobId()).getState());
+        assertEquals(RefreshJobStatus.State.SUCCEEDED, awaitFinished(queued.getJobId()).getState());
+    }
+
+    /**
+     * 沒有新的送出時，過期的 job 也會在查詢 / 定期清除時移除
+     */
+    @Test
+    void finishedJob_purgedAfterRetentionWithoutNewSubmit() throws InterruptedException {
+        RuncardFlowProperties properties = new RuncardFlowProperties();
+        properties.setJobRetention(Duration.ZERO);
+        RefreshJobService service = new RefreshJobService(runcardFlowService, properties, executor);
+        String jobId = service.submit(new RuncardParsingRequest(List.of("ModuleA"), null, null)).getJobId();
+
+        for (int i = 0; i < 200 && service.getStatus(jobId).isPresent(); i++) {
+            Thread.sleep(10);
+            service.purgeExpired();
+        }
+
+        assertTrue(service.getStatus(jobId).isEmpty());
+        assertTrue(service.getResults(jobId, 0, 10).isEmpty());
+    }
+
+    @Test
+    void unknownJob_empty() {
+        assertTrue(refreshJobService.getStatus("nope").isEmpty());
+        assertTrue(refreshJobService.getResults("nope", 0, 10).isEmpty());
+    }
+}
@@ -67,13 +67,13 @@ class RunCardParserServiceTest {
         // Condition 1: 無 group mapping
         conditionNoGroup = new OneConditionToolRuleMappingInfo();
         conditionNoGroup.setCondition("COND_NO_GROUP");
-        conditionNoGroup.setToolChambers(Arrays.asList("JDTM10#A", "JDTM10#B"));
+        conditionNoGroup.setToolChambers(Arrays.asList(ToolChamber.parse("JDTM10#A"), ToolChamber.parse("JDTM10#B")));
         conditionNoGroup.setGroupRulesMap(Collections.emptyMap());
 
         // Condition 2: 有 group mapping，condition 值為 "COND_WITH_GROUP"
         OneConditionToolRuleMappingInfo conditionWithGroup = new OneConditionToolRuleMappingInfo();
         conditionWithGroup.setCondition("COND_WITH_GROUP");
-        conditionWithGroup.setToolChambers(List.of("JDTM20#C"));
+        conditionWithGroup.setToolChambers(List.of(ToolChamber.parse("JDTM20#C")));
         Rule ruleA = new Rule();
         ruleA.setRuleType("ruleA");
         Map<String, List<Rule>> groupMap = new HashMap<>();
@@ -118,7 +118,7 @@ class RunCardParserServiceTest {
                 .findFirst();
         assertTrue(noGroupOpt.isPresent());
         OneConditionToolRuleGroupResult noGroupResult = noGroupOpt.get();
-        assertEquals(Arrays.asList("JDTM10#A", "JDTM10#B"), noGroupResult.getToolChambers());
+        assertEquals(Arrays.asList(ToolChamber.parse("JDTM10#A"), ToolChamber.parse("JDTM10#B")), noGroupResult.getToolChambers());
         assertNotNull(noGroupResult.getResults());
         assertEquals(1, noGroupResult.getResults().size());
         ResultInfo noGroupInfo = noGroupResult.getResults().get(0);
@@ -132,7 +132,7 @@ class RunCardParserServiceTest {
                 .findFirst();
         assertTrue(withGroupOpt.isPresent());
         OneConditionToolRuleGroupResult withGroupResult = withGroupOpt.get();
-        assertEquals(List.of("JDTM20#C"), withGroupResult.getToolChambers());
+        assertEquals(List.of(ToolChamber.parse("JDTM20#C")), withGroupResult.getToolChambers());
         assertNotNull(withGroupResult.getResults());
         assertEquals(1, withGroupResult.getResults().size());
         ResultInfo ruleAResult = withGroupResult.getResults().get(0);
@@ -175,7 +175,7 @@ class RunCardParserServiceTest {
         // 建立兩筆 mapping info，皆屬於 condition "COND1"
         OneConditionToolRuleMappingInfo mappingInfoDup1 = new OneConditionToolRuleMappingInfo();
         mappingInfoDup1.setCondition("COND1");
-        mappingInfoDup1.setToolChambers(Collections.singletonList("Tool1#A"));
+        mappingInfoDup1.setToolChambers(Collections.singletonList(ToolChamber.parse("Tool1#A")));
         // GroupA -> [ruleA]
         Rule ruleA = new Rule();
         ruleA.setRuleType("ruleA");
@@ -185,7 +185,7 @@ class RunCardParserServiceTest {
 
         OneConditionToolRuleMappingInfo mappingInfoDup2 = new OneConditionToolRuleMappingInfo();
         mappingInfoDup2.setCondition("COND1");
-        mappingInfoDup2.setToolChambers(Collections.singletonList("Tool2#B"));
+        mappingInfoDup2.setToolChambers(Collections.singletonList(ToolChamber.parse("Tool2#B")));
         // GroupB -> [ruleB]
         Rule ruleB = new Rule();
         ruleB.setRuleType("ruleB");
@@ -235,7 +235,7 @@ class RunCardParserServiceTest {
         // 驗證第一筆 (mappingInfoDup1)
         OneConditionToolRuleGroupResult result1 = results.get(0);
         assertEquals("COND1", result1.getCondition());
-        assertEquals(Collections.singletonList("Tool1#A"), result1.getToolChambers());
+        assertEquals(Collections.singletonList(ToolChamber.parse("Tool1#A")), result1.getToolChambers());
         assertNotNull(result1.getResults());
         assertEquals(1, result1.getResults().size());
         ResultInfo resInfo1 = result1.getResults().get(0);
@@ -247,7 +247,7 @@ class RunCardParserServiceTest {
         // 驗證第二筆 (mappingInfoDup2)
         OneConditionToolRuleGroupResult result2 = results.get(1);
         assertEquals("COND1", result2.getCondition());
-        assertEquals(Collections.singletonList("Tool2#B"), result2.getToolChambers());
+        assertEquals(Collections.singletonList(ToolChamber.parse("Tool2#B")), result2.getToolChambers());
         assertNotNull(result2.getResults());
         assertEquals(1, result2.getResults().size());
         ResultInfo resInfo2 = result2.getResults().get(0);
@@ -0,0 +1,396 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.ReferenceDataCache;
+import com.example.demo.cache.ToolGroupIndexRegistry;
+import com.example.demo.config.ReferenceCacheProperties;
+import com.example.demo.config.RuncardFlowProperties;
+import com.example.demo.po.ArrivalStatus;
+import com.example.demo.po.IssuingEngineerInfo;
+import com.example.demo.po.RecipeGroupCheckBlue;
+import com.example.demo.vo.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RuncardFlowServiceTest {
+
+    @Mock
+    private DataLoaderService dataLoaderService;
+
+    @Mock
+    private RuncardHandlerService runcardHandlerService;
+
+    @Mock
+    private RunCardParserService runCardParserService;
+
+    @Mock
+    private ObjectProvider<BatchCache> cacheProvider;
+
+    @Mock
+    private BatchCache cache;
+
+    private RuncardFlowProperties flowProperties;
+    private ExecutorService executor;
+    private RuncardFlowService runcardFlowService;
+
+    @BeforeEach
+    void setUp() {
+        flowProperties = new RuncardFlowProperties();
+        flowProperties.setParallelism(4);
+        executor = Executors.newFixedThreadPool(4);
+        runcardFlowService = new RuncardFlowService(dataLoaderService, runcardHandlerService,
+                runCardParserService, cacheProvider, flowProperties, executor, new RuncardFingerprintStore(flowProperties),
+                new ReferenceDataCache(dataLoaderService, new ReferenceCacheProperties()),
+                new ToolGroupIndexRegistry(new ReferenceCacheProperties()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 平行模式下，即使每張 runcard 完成時間不同，輸出順序仍需與輸入相同
+     */
+    @Test
+    void processMappingInfos_parallel_keepsInputOrder() {
+        List<RuncardMappingInfo> mappingInfos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            RuncardRawInfo raw = new RuncardRawInfo();
+            raw.setRuncardId("RC-" + i);
+            mappingInfos.add(new RuncardMappingInfo(raw, Collections.emptyList()));
+        }
+        when(runCardParserService.validateMappingRules(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+            return Collections.emptyList();
+        });
+
+        List<OneRuncardRuleResult> results = runcardFlowService.processMappingInfos(mappingInfos, cache);
+
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("RC-" + i, results.get(i).getRuncardId());
+        }
+    }
+
+    @Test
+    void processMappingInfos_parallel_propagatesException() {
+        RuncardRawInfo raw1 = new RuncardRawInfo();
+        raw1.setRuncardId("RC-1");
+        RuncardRawInfo raw2 = new RuncardRawInfo();
+        raw2.setRuncardId("RC-2");
+        List<RuncardMappingInfo> mappingInfos = List.of(
+                new RuncardMappingInfo(raw1, Collections.emptyList()),
+                new RuncardMappingInfo(raw2, Collections.emptyList()));
+        when(runCardParserService.validateMappingRules(any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> runcardFlowService.processMappingInfos(mappingInfos, cache));
+        assertEquals("boom", ex.getMessage());
+    }
+
+    @Test
+    void processMappingInfos_sequential() {
+        flowProperties.setParallelEnabled(false);
+        RuncardRawInfo raw1 = new RuncardRawInfo();
+        raw1.setRuncardId("RC-1");
+        RuncardRawInfo raw2 = new RuncardRawInfo();
+        raw2.setRuncardId("RC-2");
+        when(runCardParserService.validateMappingRules(any(), any())).thenReturn(Collections.emptyList());
+
+        List<OneRuncardRuleResult> results = runcardFlowService.processMappingInfos(List.of(
+                new RuncardMappingInfo(raw1, Collections.emptyList()),
+                new RuncardMappingInfo(raw2, Collections.emptyList())), cache);
+
+        assertEquals(List.of("RC-1", "RC-2"), results.stream().map(OneRuncardRuleResult::getRuncardId).toList());
+    }
+
+    private RuncardParsingRequest mockBatch(int size) {
+        List<RuncardRawInfo> raws = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            RuncardRawInfo raw = new RuncardRawInfo();
+            raw.setRuncardId("RC-" + i);
+            raws.add(raw);
+        }
+        when(cacheProvider.getObject()).thenReturn(cache);
+        when(cache.prefetchAsync(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(dataLoaderService.getToolRuleGroupsAsync(anyList())).thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+        when(dataLoaderService.getQueryRuncardBatchAsync(anyList(), any(), any())).thenReturn(CompletableFuture.completedFuture(Optional.of(raws)));
+        when(runcardHandlerService.buildRuncardMappingInfo(any(), any(), any(ToolGroupIndex.class)))
+                .thenAnswer(invocation -> new RuncardMappingInfo(invocation.getArgument(0), Collections.emptyList()));
+        lenient().when(dataLoaderService.getRuncardArrivalStatuses(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> ArrivalStatus.builder().runcardId(id).arrivalTime("1.5").build())
+                    .toList();
+        });
+        return new RuncardParsingRequest(List.of("ModuleA"), LocalDateTime.now().minusDays(1), LocalDateTime.now());
+    }
+
+    /**
+     * streaming 模式：每張 runcard 完成即送出，順序與 DAO 回傳順序相同，並補上到站資訊
+     */
+    @Test
+    void streamRuncardBatch_emitsInOrderWithArrival() {
+        flowProperties.setPipelineQueueCapacity(2);
+        flowProperties.setArrivalBatchSize(3);
+        RuncardParsingRequest request = mockBatch(30);
+        when(runCardParserService.validateMappingRules(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            return Collections.emptyList();
+        });
+
+        List<RuncardParsingResult> emitted = new ArrayList<>();
+        runcardFlowService.streamRuncardBatch(request, emitted::add);
+
+        assertEquals(30, emitted.size());
+        for (int i = 0; i < 30; i++) {
+            assertEquals("RC-" + i, emitted.get(i).getRuncardId());
+        }
+        verify(dataLoaderService, atLeastOnce()).getRuncardArrivalStatuses(anyList());
+        verify(cache, times(30)).evictRuncard(anyString());
+    }
+
+    @Test
+    void streamRuncardBatch_validationFailure_propagates() {
+        RuncardParsingRequest request = mockBatch(10);
+        when(runCardParserService.validateMappingRules(any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> runcardFlowService.streamRuncardBatch(request, r -> {
+                }));
+        assertEquals("boom", ex.getMessage());
+    }
+
+    /**
+     * 同時進行、section 部分重疊的兩個 batch 共用重疊 section 的 ToolRuleGroup 與 runcard 載入；
+     * 各 batch 的 runcard 依 section 順序串接，重複的 runcard 只保留一次
+     */
+    @Test
+    void processRuncardBatch_overlappingSections_shareSectionLoads() throws Exception {
+        CompletableFuture<List<ToolRuleGroup>> groupsB = new CompletableFuture<>();
+        CompletableFuture<Optional<List<RuncardRawInfo>>> runcardsB = new CompletableFuture<>();
+        when(cacheProvider.getObject()).thenReturn(cache);
+        when(cache.prefetchAsync(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(dataLoaderService.getToolRuleGroupsAsync(anyList())).thenAnswer(invocation ->
+                List.of("B").equals(invocation.getArgument(0)) ? groupsB : CompletableFuture.completedFuture(List.of()));
+        when(dataLoaderService.getQueryRuncardBatchAsync(anyList(), any(), any())).thenAnswer(invocation -> {
+            String sectionId = invocation.<List<String>>getArgument(0).get(0);
+            return "B".equals(sectionId) ? runcardsB
+                    : CompletableFuture.completedFuture(Optional.of(List.of(rawInfo("RC-" + sectionId), rawInfo("RC-shared"))));
+        });
+        when(runcardHandlerService.buildRuncardMappingInfo(any(), any(), any(ToolGroupIndex.class)))
+                .thenAnswer(invocation -> new RuncardMappingInfo(invocation.getArgument(0), Collections.emptyList()));
+        when(runCardParserService.validateMappingRules(any(), any())).thenReturn(Collections.emptyList());
+        lenient().when(dataLoaderService.getRuncardArrivalStatuses(anyList())).thenReturn(List.of());
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<RuncardParsingResult>> ba = callers.submit(() ->
+                    runcardFlowService.processRuncardBatch(new RuncardParsingRequest(List.of("B", "A"), null, null)));
+            Future<List<RuncardParsingResult>> bc = callers.submit(() ->
+                    runcardFlowService.processRuncardBatch(new RuncardParsingRequest(List.of("B", "C"), null, null)));
+            // 查詢 A / C 時兩個 batch 都已經在等待 section B 的載入
+            verify(dataLoaderService, timeout(5_000)).getQueryRuncardBatchAsync(eq(List.of("A")), any(), any());
+            verify(dataLoaderService, timeout(5_000)).getQueryRuncardBatchAsync(eq(List.of("C")), any(), any());
+            groupsB.complete(List.of());
+            runcardsB.complete(Optional.of(List.of(rawInfo("RC-B"), rawInfo("RC-shared"))));
+
+            assertEquals(List.of("RC-B", "RC-shared", "RC-A"),
+                    ba.get(5, TimeUnit.SECONDS).stream().map(RuncardParsingResult::getRuncardId).toList());
+            assertEquals(List.of("RC-B", "RC-shared", "RC-C"),
+                    bc.get(5, TimeUnit.SECONDS).stream().map(RuncardParsingResult::getRuncardId).toList());
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(dataLoaderService, times(1)).getToolRuleGroupsAsync(List.of("B"));
+        verify(dataLoaderService, times(1)).getQueryRuncardBatchAsync(eq(List.of("B")), any(), any());
+    }
+
+    @Test
+    void mergeSectionRuncards_allEmpty_returnsEmpty() {
+        assertTrue(RuncardFlowService.mergeSectionRuncards(List.of(Optional.empty(), Optional.empty())).isEmpty());
+        assertEquals(List.of("RC-1"), RuncardFlowService.mergeSectionRuncards(List.of(Optional.empty(), Optional.of(List.of(rawInfo("RC-1")))))
+                .orElseThrow().stream().map(RuncardRawInfo::getRuncardId).toList());
+    }
+
+    private static RuncardRawInfo rawInfo(String runcardId) {
+        RuncardRawInfo raw = new RuncardRawInfo();
+        raw.setRuncardId(runcardId);
+        return raw;
+    }
+
+    @Test
+    void processRuncardBatch_streaming_noRuncard() {
+        when(cacheProvider.getObject()).thenReturn(cache);
+        when(dataLoaderService.getToolRuleGroupsAsync(anyList())).thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+        when(dataLoaderService.getQueryRuncardBatchAsync(anyList(), any(), any())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        List<RuncardParsingResult> results = runcardFlowService.processRuncardBatch(
+                new RuncardParsingRequest(List.of("ModuleZ"), null, null));
+
+        assertEquals(1, results.size());
+        assertNull(results.get(0).getRuncardId());
+    }
+
+    /**
+     * 非 streaming 模式：runcard 清單載入失敗時丟出原始例外
+     */
+    @Test
+    void processRuncardBatch_loadFailure_propagates() {
+        flowProperties.setStreamingEnabled(false);
+        when(cacheProvider.getObject()).thenReturn(cache);
+        when(dataLoaderService.getToolRuleGroupsAsync(anyList())).thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+        when(dataLoaderService.getQueryRuncardBatchAsync(anyList(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("db down")));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> runcardFlowService.processRuncardBatch(new RuncardParsingRequest(List.of("ModuleA"), null, null)));
+        assertEquals("db down", ex.getMessage());
+    }
+
+    /**
+     * 分段模式：每段處理完即釋放該段 runcard 的快取，ToolRuleGroup 只載入一次，輸出順序不變
+     */
+    @Test
+    void processRuncardBatch_chunked() {
+        flowProperties.setStreamingEnabled(false);
+        flowProperties.setChunkSize(4);
+        RuncardParsingRequest request = mockBatch(10);
+        when(runCardParserService.validateMappingRules(any(), any())).thenReturn(Collections.emptyList());
+
+        List<RuncardParsingResult> results = runcardFlowService.processRuncardBatch(request);
+
+        assertEquals(10, results.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("RC-" + i, results.get(i).getRuncardId());
+        }
+        verify(cache, times(3)).evictRuncards(anyList());
+        verify(cache, times(3)).prefetchAsync(anyList());
+        verify(dataLoaderService, times(1)).getToolRuleGroupsAsync(anyList());
+    }
+
+    /**
+     * 增量模式：輸入未變的 runcard 沿用上一次結果，raw info 改變的 runcard 重新驗證
+     */
+    @Test
+    void processMappingInfos_incremental_reusesUnchanged() {
+        flowProperties.setIncrementalEnabled(true);
+        flowProperties.setParallelEnabled(false);
+        when(runCardParserService.validateMappingRules(any(), any())).thenReturn(Collections.emptyList());
+
+        List<RuncardMappingInfo> mappingInfos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RuncardRawInfo raw = new RuncardRawInfo();
+            raw.setRuncardId("RC-" + i);
+            raw.setStatus("OPEN");
+            mappingInfos.add(new RuncardMappingInfo(raw, Collections.emptyList()));
+        }
+
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        verify(runCardParserService, times(3)).validateMappingRules(any(), any());
+
+        mappingInfos.get(1).getRuncardRawInfo().setStatus("CLOSED");
+        List<OneRuncardRuleResult> second = runcardFlowService.processMappingInfos(mappingInfos, cache);
+
+        assertEquals(List.of("RC-0", "RC-1", "RC-2"), second.stream().map(OneRuncardRuleResult::getRuncardId).toList());
+        verify(runCardParserService, times(4)).validateMappingRules(any(), any());
+    }
+
+    @Test
+    void processMappingInfos_incremental_groupVersionChange_reevaluates() {
+        flowProperties.setIncrementalEnabled(true);
+        flowProperties.setParallelEnabled(false);
+        when(runCardParserService.validateMappingRules(any(), any())).thenReturn(Collections.emptyList());
+
+        RuncardRawInfo raw = new RuncardRawInfo();
+        raw.setRuncardId("RC-1");
+        OneConditionToolRuleMappingInfo condition = new OneConditionToolRuleMappingInfo("M1", List.of(ToolChamber.parse("JDTM16#A")),
+                Map.of("GroupA", List.of(new Rule("ForwardProcess", List.of(), Map.of()))));
+        List<RuncardMappingInfo> mappingInfos = List.of(new RuncardMappingInfo(raw, List.of(condition)));
+
+        when(cache.getToolRuleGroupVersion("GroupA")).thenReturn(LocalDateTime.of(2024, 1, 1, 0, 0));
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        verify(runCardParserService, times(1)).validateMappingRules(any(), any());
+
+        when(cache.getToolRuleGroupVersion("GroupA")).thenReturn(LocalDateTime.of(2024, 1, 2, 0, 0));
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        verify(runCardParserService, times(2)).validateMappingRules(any(), any());
+    }
+
+    @Test
+    void processMappingInfos_incremental_expiredResult_reevaluates() {
+        flowProperties.setIncrementalEnabled(true);
+        flowProperties.setParallelEnabled(false);
+        flowProperties.setIncrementalMaxReuseAge(Duration.ZERO);
+        when(runCardParserService.validateMappingRules(any(), any())).thenReturn(Collections.emptyList());
+        RuncardRawInfo raw = new RuncardRawInfo();
+        raw.setRuncardId("RC-1");
+        List<RuncardMappingInfo> mappingInfos = List.of(new RuncardMappingInfo(raw, Collections.emptyList()));
+
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+
+        verify(runCardParserService, times(2)).validateMappingRules(any(), any());
+    }
+
+    /**
+     * RCOwner 讀取的 engineer 資料與 RecipeGroupCheckBlue 讀取的 blue 索引改變時，即使 runcard 本身未變也需重新驗證
+     */
+    @Test
+    void processMappingInfos_incremental_engineerOrBlueChange_reevaluates() {
+        flowProperties.setIncrementalEnabled(true);
+        flowProperties.setParallelEnabled(false);
+        when(runCardParserService.validateMappingRules(any(), any())).thenReturn(Collections.emptyList());
+
+        RuncardRawInfo raw = new RuncardRawInfo();
+        raw.setRuncardId("RC-1");
+        raw.setIssuingEngineer("Eng/E1/Name");
+        OneConditionToolRuleMappingInfo condition = new OneConditionToolRuleMappingInfo("01", List.of(ToolChamber.parse("T1#A")),
+                Map.of("GroupA", List.of(new Rule("RCOwner", List.of(), Map.of()), new Rule("RecipeGroupCheckBlue", List.of(), Map.of()))));
+        List<RuncardMappingInfo> mappingInfos = List.of(new RuncardMappingInfo(raw, List.of(condition)));
+        when(cache.getRecipeGroupAndTool("RC-1")).thenReturn(List.of(new RecipeGroupAndTool("01", "RG1", "T1", "r-{cA}")));
+        when(cache.getIssuingEngineerInfos(anyCollection()))
+                .thenReturn(Map.of("E1", IssuingEngineerInfo.builder().engineerId("E1").sectionId("S1").build()));
+        when(cache.getRecipeGroupCheckBlueIndex(eq("RG1"), anyList()))
+                .thenReturn(Map.of("T1", ToolChamberBlueIndex.of(List.of(new RecipeGroupCheckBlue("T1", "#A", "1", "1")))));
+
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        verify(runCardParserService, times(1)).validateMappingRules(any(), any());
+
+        when(cache.getIssuingEngineerInfos(anyCollection()))
+                .thenReturn(Map.of("E1", IssuingEngineerInfo.builder().engineerId("E1").sectionId("S2").build()));
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        verify(runCardParserService, times(2)).validateMappingRules(any(), any());
+
+        when(cache.getRecipeGroupCheckBlueIndex(eq("RG1"), anyList()))
+                .thenReturn(Map.of("T1", ToolChamberBlueIndex.of(List.of(new RecipeGroupCheckBlue("T1", "#A", "1", "0")))));
+        runcardFlowService.processMappingInfos(mappingInfos, cache);
+        verify(runCardParserService, times(3)).validateMappingRules(any(), any());
+    }
+}
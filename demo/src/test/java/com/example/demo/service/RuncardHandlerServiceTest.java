@@ -7,10 +7,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -86,7 +83,7 @@ class RuncardHandlerServiceTest {
         OneConditionToolRuleMappingInfo condMapping1 = mappingInfo.getOneConditionToolRuleMappingInfos().get(0);
         assertEquals("COND1", condMapping1.getCondition());
         // 利用 ParsingUtil 的預設實作，假設 "xxx-{cEF}" 可解析成 ["JDTM16#E", "JDTM17#E"]
-        List<String> expectedChambers1 = Arrays.asList("JDTM16#E", "JDTM16#F", "JDTM17#E", "JDTM17#F");
+        List<ToolChamber> expectedChambers1 = toolChambers("JDTM16#E", "JDTM16#F", "JDTM17#E", "JDTM17#F");
         assertEquals(expectedChambers1, condMapping1.getToolChambers());
         // 檢查 groupRulesMap：對於 COND1，應該匹配到 GroupA 與 GroupB
         Map<String, List<Rule>> groupRulesMap1 = condMapping1.getGroupRulesMap();
@@ -102,7 +99,7 @@ class RuncardHandlerServiceTest {
         // 檢查第二筆 condition mapping資訊 (來自 recipeInfo2)
         OneConditionToolRuleMappingInfo condMapping2 = mappingInfo.getOneConditionToolRuleMappingInfos().get(1);
         assertEquals("COND2", condMapping2.getCondition());
-        List<String> expectedChambers2 = Collections.singletonList("JDTM20#F");
+        List<ToolChamber> expectedChambers2 = toolChambers("JDTM20#F");
         assertEquals(expectedChambers2, condMapping2.getToolChambers());
         // 檢查 groupRulesMap2：recipeInfo2 toolChambers = ["JDTM20#F"]
         // GroupA 有 tool "JDTM20#F"，GroupB 沒匹配 => groupRulesMap2 只包含 GroupA
@@ -152,7 +149,7 @@ class RuncardHandlerServiceTest {
     void testMappingRules() {
         // 測試 mappingRules() 方法，輸入一組 toolChambers 與 toolGroups，檢查返回結果
         // 假設輸入 toolChambers = ["JDTM16#E", "JDTM17#E", "JDTM20#F"]
-        List<String> toolChambers = Arrays.asList("JDTM16#E", "JDTM17#E", "JDTM20#F");
+        List<ToolChamber> toolChambers = toolChambers("JDTM16#E", "JDTM17#E", "JDTM20#F");
 
         // 依據 setUp() 的 dummy 資料:
         // GroupA 擁有工具: "JDTM16#E", "JDTM20#F"
@@ -184,7 +181,7 @@ class RuncardHandlerServiceTest {
     @Test
     void groupChamberEmpty_onlyToolIdMatch() {
         // toolChambers 送入 "AAA#B"
-        List<String> tcs = List.of("AAA#B");
+        List<ToolChamber> tcs = toolChambers("AAA#B");
 
         // toolGroup 內工具 AAA, chamber="" → 應視為匹配
         ToolInfo gTool = new ToolInfo("Dept", "Sec", "AAA", "");   // ★ chamber 空
@@ -206,7 +203,7 @@ class RuncardHandlerServiceTest {
     @Test
     void tcWildcardPercentPercent_matchAnyChamber() {
         // toolChamber 帶 wildcard
-        List<String> tcs = List.of("BBB#%%");
+        List<ToolChamber> tcs = toolChambers("BBB#%%");
 
         // group 有 BBB#X
         ToolInfo gTool = new ToolInfo("D", "S", "BBB", "X");
@@ -228,7 +225,7 @@ class RuncardHandlerServiceTest {
     @Test
     void requireBothToolAndChamberEqual() {
         // toolChamber: CCC#A
-        List<String> tcs = List.of("CCC#A");
+        List<ToolChamber> tcs = toolChambers("CCC#A");
 
         // group 有 CCC#B → 不該匹配
         ToolInfo gTool = new ToolInfo("D", "S", "CCC", "B");
@@ -243,4 +240,74 @@ class RuncardHandlerServiceTest {
         assertTrue(res.isEmpty(), "chamber 不同，應該不匹配");
     }
 
+    /**
+     * 索引比對與逐一比對 (原本的巢狀迴圈) 結果相同：隨機產生 group 與 tool#chamber，含空白 chamber、wildcard 與重複 groupName
+     */
+    @Test
+    void mappingRules_indexMatchesNestedLoop() {
+        Random random = new Random(42);
+        String[] tools = {"T1", "T2", "T3", "T4"};
+        String[] chambers = {"A", "B", "C", "", " ", null};
+        String[] tcChambers = {"A", "B", "C", "%%", "Z"};
+
+        for (int round = 0; round < 200; round++) {
+            List<ToolRuleGroup> groups = new ArrayList<>();
+            for (int g = 0; g < 1 + random.nextInt(8); g++) {
+                List<ToolInfo> groupTools = new ArrayList<>();
+                for (int t = 0; t < random.nextInt(4); t++) {
+                    groupTools.add(new ToolInfo("D", "S", tools[random.nextInt(tools.length)], chambers[random.nextInt(chambers.length)]));
+                }
+                Rule rule = new Rule();
+                rule.setRuleType("rule" + g);
+                groups.add(new ToolRuleGroup("G" + random.nextInt(5), "u", "M", "D", "S", null, groupTools, List.of(rule)));
+            }
+            List<String> tcs = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(4); i++) {
+                String tool = tools[random.nextInt(tools.length)];
+                tcs.add(random.nextInt(5) == 0 ? tool : tool + "#" + tcChambers[random.nextInt(tcChambers.length)]);
+            }
+
+            assertEquals(nestedLoopMapping(tcs, groups), runcardHandlerService.mappingRules(toolChambers(tcs.toArray(String[]::new)), groups), "round " + round);
+        }
+    }
+
+    private static List<ToolChamber> toolChambers(String... values) {
+        return Arrays.stream(values).map(ToolChamber::parse).toList();
+    }
+
+    /**
+     * 改為索引之前的比對方式 (逐一 group × tool#chamber × ToolInfo)，作為對照
+     */
+    private static Map<String, List<Rule>> nestedLoopMapping(List<String> toolChambers, List<ToolRuleGroup> toolGroups) {
+        Map<String, List<Rule>> resultMap = new HashMap<>();
+        for (ToolRuleGroup group : toolGroups) {
+            if (group.getTools() == null || group.getTools().isEmpty()) {
+                continue;
+            }
+            boolean groupMatched = false;
+            for (String tc : toolChambers) {
+                String tcTool = tc.contains("#") ? tc.substring(0, tc.indexOf('#')) : tc;
+                String tcChamber = tc.contains("#") ? tc.substring(tc.indexOf('#') + 1) : "";
+                for (ToolInfo ti : group.getTools()) {
+                    String gTool = ti.getToolId();
+                    String gChamber = ti.getChamberId() == null ? "" : ti.getChamberId().trim();
+                    boolean matched;
+                    if (gChamber.isEmpty() || "%%".equals(tcChamber)) {
+                        matched = gTool.equals(tcTool);
+                    } else {
+                        matched = gTool.equals(tcTool) && gChamber.equals(tcChamber);
+                    }
+                    if (matched) {
+                        groupMatched = true;
+                        break;
+                    }
+                }
+                if (groupMatched) break;
+            }
+            if (groupMatched && group.getGroupName() != null && group.getRules() != null) {
+                resultMap.put(group.getGroupName(), group.getRules());
+            }
+        }
+        return resultMap;
+    }
 }
@@ -0,0 +1,229 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RuncardFlowProperties;
+import com.example.demo.vo.CacheRegionStats;
+import com.example.demo.vo.OneConditionToolRuleGroupResult;
+import com.example.demo.vo.ResultInfo;
+import com.example.demo.vo.RuncardParsingRequest;
+import com.example.demo.vo.RuncardParsingResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RuncardServiceTest {
+
+    @Mock
+    private RuncardFlowService runcardFlowService;
+
+    private RuncardFlowProperties flowProperties;
+    private RuncardService runcardService;
+    private ExecutorService callers;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private final LocalDateTime end = LocalDateTime.of(2024, 1, 2, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        flowProperties = new RuncardFlowProperties();
+        callers = Executors.newFixedThreadPool(4);
+        runcardService = new RuncardService(runcardFlowService, flowProperties, callers);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    /**
+     * sectionIds 順序不同但集合相同的同時呼叫，只執行一次 processRuncardBatch 並取得同一份結果
+     */
+    @Test
+    void refresh_concurrentEquivalentRequests_coalesced() throws Exception {
+        flowProperties.setSectionFanOutEnabled(false);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<RuncardParsingResult> computed = List.of(RuncardParsingResult.builder().runcardId("RC-1").build());
+        when(runcardFlowService.processRuncardBatch(any(), any())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return computed;
+        });
+
+        Future<List<RuncardParsingResult>> first = callers.submit(() ->
+                runcardService.refresh(new RuncardParsingRequest(List.of("A", "B"), start, end)));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<List<RuncardParsingResult>> second = callers.submit(() ->
+                runcardService.refresh(new RuncardParsingRequest(List.of("B", "A", "A"), start, end)));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals(computed, first.get(5, TimeUnit.SECONDS));
+        assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+        verify(runcardFlowService, times(1)).processRuncardBatch(any(), any());
+    }
+
+    @Test
+    void refresh_differentWindow_notCoalesced() {
+        when(runcardFlowService.processRuncardBatch(any(), any())).thenReturn(List.of());
+
+        runcardService.refresh(new RuncardParsingRequest(List.of("A"), start, end));
+        runcardService.refresh(new RuncardParsingRequest(List.of("A"), start, end.plusDays(1)));
+
+        verify(runcardFlowService, times(2)).processRuncardBatch(any(), any());
+    }
+
+    @Test
+    void refresh_failure_propagatesToCaller() {
+        when(runcardFlowService.processRuncardBatch(any(), any())).thenThrow(new IllegalStateException("db down"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> runcardService.refresh(new RuncardParsingRequest(List.of("A"), start, end)));
+        assertEquals("db down", ex.getMessage());
+    }
+
+    private static RuncardParsingResult result(String runcardId) {
+        return RuncardParsingResult.builder().runcardId(runcardId).build();
+    }
+
+    /**
+     * 多 section 時依 section 各自處理，結果依 section 順序合併
+     */
+    @Test
+    void refresh_multiSection_fanOutAndMerge() {
+        flowProperties.setSectionFanOutEnabled(true);
+        when(runcardFlowService.processRuncardBatch(any(), any())).thenAnswer(invocation -> {
+            RuncardParsingRequest request = invocation.getArgument(0);
+            assertEquals(1, request.getSectionIds().size());
+            String section = request.getSectionIds().get(0);
+            return List.of(result(section + "-1"), result(section + "-2"));
+        });
+
+        List<RuncardParsingResult> results = runcardService.refresh(new RuncardParsingRequest(List.of("B", "A"), start, end));
+
+        assertEquals(List.of("A-1", "A-2", "B-1", "B-2"), results.stream().map(RuncardParsingResult::getRuncardId).toList());
+        verify(runcardFlowService, times(2)).processRuncardBatch(any(), any());
+    }
+
+    /**
+     * 部分重疊的兩個 request 同時進行時，重疊的 section 只計算一次
+     */
+    @Test
+    void refresh_overlappingSections_shareSection() throws Exception {
+        flowProperties.setSectionFanOutEnabled(true);
+        CountDownLatch sectionBEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> processedSections = Collections.synchronizedList(new ArrayList<>());
+        when(runcardFlowService.processRuncardBatch(any(), any())).thenAnswer(invocation -> {
+            RuncardParsingRequest request = invocation.getArgument(0);
+            String section = request.getSectionIds().get(0);
+            processedSections.add(section);
+            if (section.equals("B")) {
+                sectionBEntered.countDown();
+                release.await();
+            }
+            return List.of(result(section + "-1"));
+        });
+
+        Future<List<RuncardParsingResult>> first = callers.submit(() ->
+                runcardService.refresh(new RuncardParsingRequest(List.of("A", "B"), start, end)));
+        assertTrue(sectionBEntered.await(5, TimeUnit.SECONDS));
+        Future<List<RuncardParsingResult>> second = callers.submit(() ->
+                runcardService.refresh(new RuncardParsingRequest(List.of("B", "C"), start, end)));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(List.of("A-1", "B-1"), first.get(5, TimeUnit.SECONDS).stream().map(RuncardParsingResult::getRuncardId).toList());
+        assertEquals(List.of("B-1", "C-1"), second.get(5, TimeUnit.SECONDS).stream().map(RuncardParsingResult::getRuncardId).toList());
+        assertEquals(1, processedSections.stream().filter("B"::equals).count());
+    }
+
+    /**
+     * 本批次快取統計隨結果回傳；依 section 拆開時依 region 加總
+     */
+    @Test
+    void refreshWithStats_fanOut_sumsCacheStatsByRegion() {
+        flowProperties.setSectionFanOutEnabled(true);
+        when(runcardFlowService.processRuncardBatch(any(), any())).thenAnswer(invocation -> {
+            BatchProgress progress = invocation.getArgument(1);
+            progress.setCacheStats(List.of(CacheRegionStats.builder().scope("batch").region("engineer")
+                    .hits(3L).misses(1L).loads(1L).loadFailures(0L).avgLoadMillis(4.0)
+                    .loadLatencyMillis(Map.of("<=5ms", 1L)).build()));
+            return List.of();
+        });
+
+        RuncardService.RefreshOutcome outcome = runcardService.refreshWithStats(new RuncardParsingRequest(List.of("A", "B"), start, end));
+
+        assertEquals(1, outcome.cacheStats().size());
+        CacheRegionStats engineer = outcome.cacheStats().get(0);
+        assertEquals(6L, engineer.getHits());
+        assertEquals(2L, engineer.getMisses());
+        assertEquals(2L, engineer.getLoads());
+        assertEquals(0.75, engineer.getHitRate());
+        assertEquals(4.0, engineer.getAvgLoadMillis());
+        assertEquals(Map.of("<=5ms", 2L), engineer.getLoadLatencyMillis());
+    }
+
+    @Test
+    void mergeSectionResults_dedupeAndEmptyPlaceholder() {
+        RuncardParsingResult empty = RuncardParsingResult.builder().build();
+
+        List<RuncardParsingResult> merged = RuncardService.mergeSectionResults(List.of(
+                List.of(result("RC-1"), result("RC-2")),
+                List.of(empty),
+                List.of(result("RC-2"), result("RC-3"))));
+        assertEquals(List.of("RC-1", "RC-2", "RC-3"), merged.stream().map(RuncardParsingResult::getRuncardId).toList());
+
+        List<RuncardParsingResult> allEmpty = RuncardService.mergeSectionResults(List.of(List.of(empty), List.of(empty)));
+        assertEquals(1, allEmpty.size());
+        assertNull(allEmpty.get(0).getRuncardId());
+    }
+
+    /**
+     * section A 的 runcard mapping 到 section B 的 group：預設 (不拆 section) 保留此 mapping；
+     * 開啟 fan-out 後每個 section 只比對自己的 group，此 mapping 消失
+     */
+    @Test
+    void refresh_crossSectionGroup_keptOnlyWithoutFanOut() {
+        when(runcardFlowService.processRuncardBatch(any(), any())).thenAnswer(invocation -> {
+            RuncardParsingRequest request = invocation.getArgument(0);
+            // RC-1 屬於 section A，其 tool 只在 section B 的 group 中
+            if (!request.getSectionIds().contains("A")) {
+                return List.of();
+            }
+            String ruleType = request.getSectionIds().contains("B") ? "ruleFromB" : "no-group";
+            return List.of(RuncardParsingResult.builder()
+                    .runcardId("RC-1")
+                    .conditions(List.of(new OneConditionToolRuleGroupResult("M1", List.of(),
+                            List.of(ResultInfo.builder().ruleType(ruleType).result(1).build()))))
+                    .build());
+        });
+        RuncardParsingRequest request = new RuncardParsingRequest(List.of("A", "B"), start, end);
+
+        List<RuncardParsingResult> combined = runcardService.refresh(request);
+        flowProperties.setSectionFanOutEnabled(true);
+        List<RuncardParsingResult> fannedOut = runcardService.refresh(request);
+
+        assertEquals("ruleFromB", combined.get(0).getConditions().get(0).getResults().get(0).getRuleType());
+        assertEquals("no-group", fannedOut.get(0).getConditions().get(0).getResults().get(0).getRuleType());
+        verify(runcardFlowService, times(3)).processRuncardBatch(any(), any());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 改為單次掃描前的 regex 版解析 (保留作為等價測試與 benchmark 的比較基準)
+ */
+final class RegexToolChamberParser {
+
+    private static final Pattern EXPANSION_PATTERN = Pattern.compile("\\{(.*?)\\}");
+
+    private RegexToolChamberParser() {
+    }
+
+    static List<String> splitToolList(String toolIdList) {
+        if (toolIdList == null || toolIdList.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Stream.of(toolIdList.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(SymbolTable::intern)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 改為 ToolChamber 前的字串版本：toolList x 平舖展開的 chamber，組成 "tool#chamber"；無大括號時原樣回傳 toolList
+     */
+    static List<String> parsingChamber(List<String> toolList, String recipeId) {
+        if (recipeId == null || !recipeId.contains("{")) {
+            return toolList;
+        }
+        List<String> expansions = extractExpansions(recipeId);
+        if (expansions.isEmpty()) {
+            return toolList;
+        }
+        List<String> result = new ArrayList<>();
+        for (String tool : toolList) {
+            for (String exp : expansions) {
+                result.add(tool + "#" + exp);
+            }
+        }
+        return result;
+    }
+
+    static List<String> extractExpansions(String recipeId) {
+        List<String> expansions = new ArrayList<>();
+        for (List<String> orList : extractBracketExpansionsGrouped(recipeId)) {
+            expansions.addAll(orList);
+        }
+        return expansions;
+    }
+
+    static List<List<String>> extractBracketExpansionsGrouped(String recipeId) {
+        List<List<String>> bracketExpansions = new ArrayList<>();
+        Matcher matcher = EXPANSION_PATTERN.matcher(recipeId);
+        while (matcher.find()) {
+            String content = matcher.group(1);
+            if (content.startsWith("c")) {
+                content = content.substring(1).trim();
+            }
+            bracketExpansions.add(parseOneBracketContent(content));
+        }
+        return bracketExpansions;
+    }
+
+    private static List<String> parseOneBracketContent(String content) {
+        if (content.isEmpty()) {
+            return Collections.singletonList("%%");
+        }
+        if (content.startsWith("(") && content.endsWith(")")) {
+            String inner = content.substring(1, content.length() - 1);
+            List<String> list = new ArrayList<>();
+            for (String p : inner.split(";")) {
+                String trimmed = p.trim();
+                if (!trimmed.isEmpty()) {
+                    list.add(SymbolTable.intern(trimmed));
+                }
+            }
+            return list;
+        }
+        List<String> list = new ArrayList<>();
+        for (char ch : content.toCharArray()) {
+            list.add(SymbolTable.intern(String.valueOf(ch)));
+        }
+        return list;
+    }
+}
@@ -127,4 +127,11 @@ class RuleUtilTest {
         assertFalse(RuleUtil.isLotTypeMismatch(rc, rule));
     }
 
+    @Test
+    void extractEmpId() {
+        assertEquals("E001", RuleUtil.extractEmpId("Alice/ E001 /Litho").orElseThrow());
+        assertTrue(RuleUtil.extractEmpId("Alice/E001").isEmpty());
+        assertTrue(RuleUtil.extractEmpId("Alice//Litho").isEmpty());
+        assertTrue(RuleUtil.extractEmpId(null).isEmpty());
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.demo.utils;
+
+import com.example.demo.vo.Rule;
+import com.example.demo.vo.ToolChamber;
+import com.example.demo.vo.ToolGroupIndex;
+import com.example.demo.vo.ToolInfo;
+import com.example.demo.vo.ToolRuleGroup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ToolGroupIndex.match：索引端的 tool / chamber 為 SymbolTable canonical instance vs 內容相同但各自獨立的字串
+ * (查詢端的 ToolChamber 一律為 canonical instance)。
+ * <p>
+ * 執行：mvn test-compile 後以 test classpath 執行本類別的 main。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SymbolTableBenchmark {
+
+    private static final String[] CHAMBERS = {"A", "B", "C", "D", "E", "F"};
+
+    @Param({"true", "false"})
+    public boolean interned;
+
+    private ToolGroupIndex index;
+    private List<List<ToolChamber>> queries;
+
+    @Setup
+    public void setUp() {
+        List<ToolRuleGroup> groups = new ArrayList<>();
+        for (int g = 0; g < 200; g++) {
+            List<ToolInfo> tools = new ArrayList<>();
+            for (int t = 0; t < 10; t++) {
+                tools.add(new ToolInfo("D", "S", id("JDTM" + (g * 7 + t) % 500), id(CHAMBERS[t % CHAMBERS.length])));
+            }
+            groups.add(new ToolRuleGroup("G" + g, "u", "M", "D", "S", null, tools, List.of(new Rule("ForwardProcess", List.of(), Map.of()))));
+        }
+        index = ToolGroupIndex.of(groups);
+
+        queries = new ArrayList<>();
+        for (int q = 0; q < 100; q++) {
+            List<ToolChamber> toolChambers = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                toolChambers.add(ToolChamber.of("JDTM" + (q * 13 + i) % 500, CHAMBERS[i % CHAMBERS.length]));
+            }
+            queries.add(toolChambers);
+        }
+    }
+
+    private String id(String value) {
+        return interned ? SymbolTable.intern(value) : new String(value);
+    }
+
+    @Benchmark
+    public int match() {
+        int matched = 0;
+        for (List<ToolChamber> toolChambers : queries) {
+            matched += index.match(toolChambers).size();
+        }
+        return matched;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SymbolTableBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
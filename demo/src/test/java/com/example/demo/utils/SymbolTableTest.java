@@ -0,0 +1,49 @@
+package com.example.demo.utils;
+
+import com.example.demo.vo.ToolChamber;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+    @Test
+    void intern_sameContent_sameInstance() {
+        String a = new String("JDTM16");
+        String b = new String("JDTM16");
+
+        assertSame(SymbolTable.intern(a), SymbolTable.intern(b));
+        assertNull(SymbolTable.intern(null));
+    }
+
+    /**
+     * 解析出的 tool 與 chamber 在不同呼叫之間為同一個 instance
+     */
+    @Test
+    void toolChamberUtil_returnsCanonicalInstances() {
+        List<ToolChamber> first = ToolChamberUtil.parseToolChambers(
+                ToolChamberUtil.splitToolList(new String("JDTM16, JDTM17")), "xxx.xx-{c(EF;GH)}");
+        List<ToolChamber> second = ToolChamberUtil.parseToolChambers(
+                ToolChamberUtil.splitToolList(new String("JDTM17,JDTM16")), "yyy.yy-{c(EF)}");
+
+        assertEquals(List.of(ToolChamber.parse("JDTM16#EF"), ToolChamber.parse("JDTM16#GH"),
+                ToolChamber.parse("JDTM17#EF"), ToolChamber.parse("JDTM17#GH")), first);
+        assertSame(first.get(0).getTool(), second.get(1).getTool());
+        assertSame(first.get(0).getChamber(), second.get(0).getChamber());
+    }
+
+    /**
+     * 表滿時清空重新收錄，之後新出現的字串仍會 canonical 化
+     */
+    @Test
+    void intern_full_clearsAndKeepsCanonicalizing() {
+        for (int i = 0; i <= SymbolTable.MAX_SYMBOLS; i++) {
+            SymbolTable.intern("FILL-" + i);
+        }
+        assertTrue(SymbolTable.size() <= SymbolTable.MAX_SYMBOLS);
+
+        assertSame(SymbolTable.intern(new String("JDTM99")), SymbolTable.intern(new String("JDTM99")));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 單次掃描的 recipeId / toolIdList 解析與原本 regex 版結果完全相同
+ */
+class ToolChamberScannerEquivalenceTest {
+
+    private static final List<String> RECIPE_IDS = List.of(
+            "xxx.xx-xxxx.xxxx-{c}",
+            "xxx.xx-xxxx.xxxx-{cEF}{c134}",
+            "xxx.xx-xxxx.xxxx-{c(3;2)}",
+            "xxx.xx-xxxx.xxxx-{cD}{cE}{c(2;C)}{c35}{c14}",
+            "{c( 3 ; ;2 )}", "{c ()}", "{c(}", "{c)}", "{c(;)}", "{ c}", "{AB }", "{c A B }",
+            "{}", "{{c1}", "{c1}}", "{c1", "c1}", "{c1\n}{c2}", "{c }{c3}", "{c(10;11)}{cé}",
+            "no-bracket", "");
+
+    private static final List<String> TOOL_LISTS = List.of(
+            "JDTM16, JDTM17, JDTM20", "JDTM16", " , ,", "  ", "a,,b,", ",a", "\tT1 ,T2\t", "");
+
+    @Test
+    void recipeIds_matchRegexBaseline() {
+        for (String recipeId : RECIPE_IDS) {
+            assertMatchesBaseline(recipeId);
+        }
+    }
+
+    @Test
+    void randomRecipeIds_matchRegexBaseline() {
+        Random random = new Random(24);
+        String alphabet = "{}c();AB12 \n.-";
+        for (int n = 0; n < 5_000; n++) {
+            StringBuilder recipeId = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                recipeId.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertMatchesBaseline(recipeId.toString());
+        }
+    }
+
+    @Test
+    void splitToolList_matchesRegexBaseline() {
+        for (String tools : TOOL_LISTS) {
+            assertEquals(RegexToolChamberParser.splitToolList(tools), ToolChamberUtil.splitToolList(tools), tools);
+        }
+        assertEquals(RegexToolChamberParser.splitToolList(null), ToolChamberUtil.splitToolList(null));
+    }
+
+    @Test
+    void singleCharacterChambers_areSharedConstants() {
+        List<String> first = ToolChamberUtil.parseRecipeChambers("{cAB}").flat();
+        List<String> second = ToolChamberUtil.parseRecipeChambers("{c(B;A)}").flat();
+
+        assertSame(first.get(0), second.get(1));
+        assertSame(first.get(1), second.get(0));
+    }
+
+    private static void assertMatchesBaseline(String recipeId) {
+        ToolChamberUtil.RecipeChambers parsed = ToolChamberUtil.parseRecipeChambers(recipeId);
+        assertEquals(RegexToolChamberParser.extractBracketExpansionsGrouped(recipeId), parsed.grouped(), recipeId);
+        assertEquals(RegexToolChamberParser.extractExpansions(recipeId), parsed.flat(), recipeId);
+    }
+}
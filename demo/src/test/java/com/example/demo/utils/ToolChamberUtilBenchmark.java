@@ -0,0 +1,57 @@
+package com.example.demo.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * recipeId / toolIdList 解析：單次掃描 vs 原本 regex 版 (不經過 memo，量測解析本身)。
+ * <p>
+ * 執行：mvn test-compile 後以 test classpath 執行本類別的 main。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ToolChamberUtilBenchmark {
+
+    private static final List<String> RECIPE_IDS = List.of(
+            "xxx.xx-xxxx.xxxx-{c}",
+            "xxx.xx-xxxx.xxxx-{cEF}{c134}",
+            "xxx.xx-xxxx.xxxx-{c(3;2)}",
+            "xxx.xx-xxxx.xxxx-{cD}{cE}{c(2;C)}{c35}{c14}");
+
+    private static final String TOOL_ID_LIST = "JDTM16, JDTM17, JDTM20, JDTM21,JDTM22";
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        for (String recipeId : RECIPE_IDS) {
+            ToolChamberUtil.RecipeChambers parsed = ToolChamberUtil.parseRecipeChambers(recipeId);
+            blackhole.consume(parsed.grouped());
+            blackhole.consume(parsed.flat());
+        }
+        blackhole.consume(ToolChamberUtil.splitToolList(TOOL_ID_LIST));
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String recipeId : RECIPE_IDS) {
+            blackhole.consume(RegexToolChamberParser.extractBracketExpansionsGrouped(recipeId));
+            blackhole.consume(RegexToolChamberParser.extractExpansions(recipeId));
+        }
+        blackhole.consume(RegexToolChamberParser.splitToolList(TOOL_ID_LIST));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ToolChamberUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.demo.utils;
 
+import com.example.demo.vo.OneConditionToolRuleGroupResult;
+import com.example.demo.vo.ToolChamber;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
@@ -9,11 +12,20 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
 class ToolChamberUtilTest {
 
+    /**
+     * parseToolChambers 的字串形式 ("tool#chamber"，無 chamber 時只有 tool)
+     */
+    private static List<String> toolChamberStrings(List<String> tools, String recipeId) {
+        return ToolChamberUtil.parseToolChambers(tools, recipeId).stream().map(ToolChamber::toString).toList();
+    }
+
     @Test
     void splitToolList_nullOrEmpty() {
         assertTrue(ToolChamberUtil.splitToolList(null).isEmpty());
@@ -28,21 +40,21 @@ class ToolChamberUtilTest {
     }
 
     @Test
-    void parsingChamber_noBrackets() {
+    void parseToolChambers_noBrackets() {
         List<String> tools = Arrays.asList("JDTM16", "JDTM17", "JDTM20");
-        assertEquals(tools, ToolChamberUtil.parsingChamber(tools, "xxx.xx-xxxx.xxxx-"));
+        assertEquals(tools, toolChamberStrings(tools, "xxx.xx-xxxx.xxxx-"));
     }
 
     @Test
-    void parsingChamber_case1_bracketsEmpty() {
+    void parseToolChambers_case1_bracketsEmpty() {
         List<String> tools = Arrays.asList("JDTM16", "JDTM17", "JDTM20");
         String recipeId = "xxx.xx-xxxx.xxxx-{c}";
         List<String> expected = Arrays.asList("JDTM16#%%", "JDTM17#%%", "JDTM20#%%");
-        assertEquals(expected, ToolChamberUtil.parsingChamber(tools, recipeId));
+        assertEquals(expected, toolChamberStrings(tools, recipeId));
     }
 
     @Test
-    void parsingChamber_case2_singleLetters() {
+    void parseToolChambers_case2_singleLetters() {
         List<String> tools = Arrays.asList("JDTM16", "JDTM17", "JDTM20");
         String recipeId = "xxx.xx-xxxx.xxxx-{cEF}";
         List<String> expected = Arrays.asList(
@@ -50,11 +62,11 @@ class ToolChamberUtilTest {
                 "JDTM17#E", "JDTM17#F",
                 "JDTM20#E", "JDTM20#F"
         );
-        assertEquals(expected, ToolChamberUtil.parsingChamber(tools, recipeId));
+        assertEquals(expected, toolChamberStrings(tools, recipeId));
     }
 
     @Test
-    void parsingChamber_case3_multipleGroupsWithoutParen() {
+    void parseToolChambers_case3_multipleGroupsWithoutParen() {
         // 情形 (3): {cEF}{c134}{cAB}
         // {cEF} -> ["E","F"]
         // {c134} -> ["1","3","4"]
@@ -70,11 +82,11 @@ class ToolChamberUtilTest {
                 // For JDTM20
                 "JDTM20#E", "JDTM20#F", "JDTM20#1", "JDTM20#3", "JDTM20#4", "JDTM20#A", "JDTM20#B"
         );
-        assertEquals(expected, ToolChamberUtil.parsingChamber(tools, recipeId));
+        assertEquals(expected, toolChamberStrings(tools, recipeId));
     }
 
     @Test
-    void parsingChamber_case4_multipleGroupsWithParen() {
+    void parseToolChambers_case4_multipleGroupsWithParen() {
         // 情形 (4): {c(3;2)}  -> 返回 ["3", "2"]
         List<String> tools = Arrays.asList("JDTM16", "JDTM17", "JDTM20");
         String recipeId = "xxx.xx-xxxx.xxxx-{c(3;2)}";
@@ -83,11 +95,11 @@ class ToolChamberUtilTest {
                 "JDTM17#3", "JDTM17#2",
                 "JDTM20#3", "JDTM20#2"
         );
-        assertEquals(expected, ToolChamberUtil.parsingChamber(tools, recipeId));
+        assertEquals(expected, toolChamberStrings(tools, recipeId));
     }
 
     @Test
-    void parsingChamber_caseExtraMultipleParens() {
+    void parseToolChambers_caseExtraMultipleParens() {
         // 模擬情形：{c(2;3)}{c(A;C)}{c(B;D)}
         // {c(2;3)} -> ["2", "3"]
         // {c(A;C)} -> ["A", "C"]
@@ -103,11 +115,11 @@ class ToolChamberUtilTest {
                 // For JDTM20
                 "JDTM20#2", "JDTM20#3", "JDTM20#A", "JDTM20#C", "JDTM20#B", "JDTM20#D"
         );
-        assertEquals(expected, ToolChamberUtil.parsingChamber(tools, recipeId));
+        assertEquals(expected, toolChamberStrings(tools, recipeId));
     }
 
     @Test
-    void parsingChamber_case5_singleGroupLetters() {
+    void parseToolChambers_case5_singleGroupLetters() {
         // 情形 (5): {cEF} -> 返回 ["E", "F"]
         List<String> tools = Arrays.asList("JDTM16", "JDTM17", "JDTM20");
         String recipeId = "xxx.xx-xxxx.xxxx-{cEF}";
@@ -116,7 +128,7 @@ class ToolChamberUtilTest {
                 "JDTM17#E", "JDTM17#F",
                 "JDTM20#E", "JDTM20#F"
         );
-        assertEquals(expected, ToolChamberUtil.parsingChamber(tools, recipeId));
+        assertEquals(expected, toolChamberStrings(tools, recipeId));
     }
 
     /**
@@ -218,10 +230,10 @@ class ToolChamberUtilTest {
     }
 
     @Test
-    void parsingChamber_compoundCase1() {
+    void parseToolChambers_compoundCase1() {
         List<String> tools = Arrays.asList("T1", "T2");
         String recipeId = "xxx.xx-xxxx.xxxx-{c3}{c(2;5)}";
-        List<String> result = ToolChamberUtil.parsingChamber(tools, recipeId);
+        List<String> result = toolChamberStrings(tools, recipeId);
 
         List<String> expected = Arrays.asList(
                 "T1#3", "T1#2", "T1#5",
@@ -231,17 +243,17 @@ class ToolChamberUtilTest {
     }
 
     @Test
-    void parsingChamber_compoundCase2() {
+    void parseToolChambers_compoundCase2() {
         List<String> tools = Collections.singletonList("T1");
         String recipeId = "xxx.xx-xxxx.xxxx-{c(3;4;5)}{c2}";
-        List<String> result = ToolChamberUtil.parsingChamber(tools, recipeId);
+        List<String> result = toolChamberStrings(tools, recipeId);
 
         List<String> expected = Arrays.asList("T1#3", "T1#4", "T1#5", "T1#2");
         assertEquals(expected, result);
     }
 
     @Test
-    void parsingChamber_compoundCase3() {
+    void parseToolChambers_compoundCase3() {
         // 1) {cE}  -> ["E"]
         // 2) {cC}  -> ["C"]
         // 3) {cD}  -> ["D"]
@@ -250,7 +262,7 @@ class ToolChamberUtilTest {
         // expansions => ["E", "C", "D", "3", "5", "1", "4"]
         List<String> tools = Arrays.asList("A", "B");
         String recipeId = "xxx.xx-xxxx.xxxx-{cE}{cC}{cD}{c35}{c(1;4)}";
-        List<String> result = ToolChamberUtil.parsingChamber(tools, recipeId);
+        List<String> result = toolChamberStrings(tools, recipeId);
 
         List<String> expected = Arrays.asList(
                 "A#E", "A#C", "A#D", "A#3", "A#5", "A#1", "A#4",
@@ -260,7 +272,7 @@ class ToolChamberUtilTest {
     }
 
     @Test
-    void parsingChamber_compoundCase4() {
+    void parseToolChambers_compoundCase4() {
         // {cD}       -> ["D"]
         // {cE}       -> ["E"]
         // {c(2;C)}   -> ["2","C"]
@@ -269,7 +281,7 @@ class ToolChamberUtilTest {
         // expansions => ["D","E","2","C","3","5","1","4"]
         List<String> tools = Collections.singletonList("X");
         String recipeId = "xxx.xx-xxxx.xxxx-{cD}{cE}{c(2;C)}{c35}{c14}";
-        List<String> result = ToolChamberUtil.parsingChamber(tools, recipeId);
+        List<String> result = toolChamberStrings(tools, recipeId);
 
         // 預期: X#D, X#E, X#2, X#C, X#3, X#5, X#1, X#4
         List<String> expected = Arrays.asList("X#D", "X#E", "X#2", "X#C", "X#3", "X#5", "X#1", "X#4");
@@ -355,4 +367,58 @@ class ToolChamberUtilTest {
         assertEquals(Arrays.asList("1", "4"), expansions.get(4));
     }
 
+    /**
+     * 同一 recipeId 第二次解析直接命中 memo，且不同 tool 共用同一份不可變更的展開清單
+     */
+    @Test
+    void parseChamberGrouped_sameRecipeId_sharedImmutableExpansions() {
+        String recipeId = "memo.xx-xxxx.xxxx-{cAB}{c(1;3)}";
+        long hitsBefore = ToolChamberUtil.recipeChamberStats().getHits();
+
+        Map<String, List<List<String>>> first = ToolChamberUtil.parseChamberGrouped(Arrays.asList("T1", "T2"), recipeId);
+        Map<String, List<List<String>>> second = ToolChamberUtil.parseChamberGrouped(Collections.singletonList("T3"), recipeId);
+
+        assertEquals(List.of(List.of("A", "B"), List.of("1", "3")), first.get("T1"));
+        assertSame(first.get("T1"), first.get("T2"));
+        assertSame(first.get("T1"), second.get("T3"));
+        assertThrows(UnsupportedOperationException.class, () -> first.get("T1").get(0).add("C"));
+        assertEquals(List.of("T1#A", "T1#B", "T1#1", "T1#3"), toolChamberStrings(List.of("T1"), recipeId));
+        assertTrue(ToolChamberUtil.recipeChamberStats().getHits() >= hitsBefore + 2);
+    }
+
+    /**
+     * memo 滿時清空重新收錄，之後新出現的 recipeId 仍會 memo
+     */
+    @Test
+    void parseChamberGrouped_memoFull_clearsAndKeepsMemoizing() {
+        for (int i = 0; i <= ToolChamberUtil.MAX_RECIPE_CHAMBERS; i++) {
+            ToolChamberUtil.parseChamberGrouped(List.of("T1"), "fill-" + i + "-{cA}");
+        }
+        assertTrue(ToolChamberUtil.recipeChamberStats().getSize() <= ToolChamberUtil.MAX_RECIPE_CHAMBERS);
+
+        String recipeId = "after-full-{cEF}";
+        assertSame(ToolChamberUtil.parseChamberGrouped(List.of("T1"), recipeId).get("T1"),
+                ToolChamberUtil.parseChamberGrouped(List.of("T2"), recipeId).get("T2"));
+    }
+
+    /**
+     * 與改為 ToolChamber 前的字串版本 (regex 解析) 展開結果相同，JSON 輸出仍為 "tool#chamber"
+     */
+    @Test
+    void parseToolChambers_matchesRegexStringForm() throws Exception {
+        List<String> tools = Arrays.asList("JDTM16", "JDTM17");
+        for (String recipeId : Arrays.asList("xxx-{cEF}{c(1;2)}", "xxx-{c}", "xxx-", "xxx-{", null)) {
+            List<ToolChamber> toolChambers = ToolChamberUtil.parseToolChambers(tools, recipeId);
+            assertEquals(RegexToolChamberParser.parsingChamber(tools, recipeId),
+                    toolChambers.stream().map(ToolChamber::toString).toList(), recipeId);
+        }
+
+        OneConditionToolRuleGroupResult result = new OneConditionToolRuleGroupResult(
+                "COND1", ToolChamberUtil.parseToolChambers(List.of("JDTM16"), "xxx-{c%}"), List.of());
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(result);
+        assertTrue(json.contains("\"toolChambers\":[\"JDTM16#%\"]"), json);
+        assertEquals(result, mapper.readValue(json, OneConditionToolRuleGroupResult.class));
+    }
+
 }